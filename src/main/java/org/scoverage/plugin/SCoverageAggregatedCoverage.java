@@ -0,0 +1,234 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import scala.Tuple2;
+import scala.jdk.javaapi.CollectionConverters;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Statement;
+
+/**
+ * Read-only view of aggregated coverage of multiple modules.
+ * <br>
+ * <br>
+ * Modules' statements are not copied into a new {@link Coverage}, the view iterates
+ * over modules' coverage models directly. To keep aggregated statement ids unique,
+ * every added module is assigned a range of ids starting at its id offset:
+ * aggregated id is the module's id offset plus the statement's id in the module.
+ * Statements are returned with their aggregated ids, copies are created while the view is iterated.
+ * Like in aggregation by copying, modules' ignored statements are not part of the aggregated coverage.
+ * <br>
+ * <br>
+ * Statements must not be added directly, use {@link #addModule(Coverage)}.
+ * Not thread-safe, modules should be added by one thread before the view is read.
+ */
+public class SCoverageAggregatedCoverage
+    extends Coverage
+{
+    private final List<Coverage> modules = new ArrayList<Coverage>();
+
+    private final List<Integer> idOffsets = new ArrayList<Integer>();
+
+    private int nextIdOffset;
+
+    private int statementCount;
+
+    /**
+     * Adds coverage of the next module to this view.
+     *
+     * @param moduleCoverage measured coverage of the module, can be another aggregated view
+     * @return id offset assigned to the module
+     */
+    public int addModule( Coverage moduleCoverage )
+    {
+        int idOffset = nextIdOffset;
+        // Nested view's statements keep their modules' ids, its id range is given by its modules' offsets
+        int maxId = moduleCoverage instanceof SCoverageAggregatedCoverage aggregated ? aggregated.nextIdOffset - 1
+            : Math.max( maxId( moduleCoverage.statements() ), maxId( moduleCoverage.ignoredStatements() ) );
+
+        modules.add( moduleCoverage );
+        idOffsets.add( idOffset );
+        // Module without statements still gets a range, so every module has its own id offset
+        nextIdOffset = idOffset + Math.max( maxId + 1, 1 );
+        statementCount += moduleCoverage.statementCount();
+        return idOffset;
+    }
+
+    /**
+     * Returns the number of modules in this view.
+     *
+     * @return number of modules
+     */
+    public int moduleCount()
+    {
+        return modules.size();
+    }
+
+    /**
+     * Returns the id offset assigned to the module.
+     *
+     * @param moduleIndex index of the module, in order of addition
+     * @return first aggregated statement id of the module
+     */
+    public int idOffset( int moduleIndex )
+    {
+        return idOffsets.get( moduleIndex );
+    }
+
+    /**
+     * Returns statements of all modules with aggregated ids.
+     *
+     * @return aggregated statements
+     */
+    @Override
+    public scala.collection.Iterable<Statement> statements()
+    {
+        return CollectionConverters.asScala( concat() );
+    }
+
+    /**
+     * Returns no statements, modules' ignored statements are not aggregated.
+     *
+     * @return empty statements
+     */
+    @Override
+    public scala.collection.Iterable<Statement> ignoredStatements()
+    {
+        return CollectionConverters.asScala( Collections.<Statement>emptyList() );
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int statementCount()
+    {
+        return statementCount;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int ignoredStatementCount()
+    {
+        return 0;
+    }
+
+    /**
+     * Not supported, statements are added with their modules.
+     */
+    @Override
+    public void add( Statement stmt )
+    {
+        throw new UnsupportedOperationException( "Statements can be added only with their modules" );
+    }
+
+    /**
+     * Not supported, statements are added with their modules.
+     */
+    @Override
+    public void addIgnoredStatement( Statement stmt )
+    {
+        throw new UnsupportedOperationException( "Statements can be added only with their modules" );
+    }
+
+    /**
+     * Registers invocation of a statement identified by its aggregated id.
+     *
+     * @param id aggregated statement id and test name
+     */
+    @Override
+    public void invoked( Tuple2<Object, String> id )
+    {
+        int aggregatedId = (Integer) id._1();
+        int moduleIndex = Collections.binarySearch( idOffsets, aggregatedId );
+        if ( moduleIndex < 0 )
+        {
+            moduleIndex = -moduleIndex - 2;
+        }
+        if ( moduleIndex >= 0 )
+        {
+            int moduleId = aggregatedId - idOffsets.get( moduleIndex );
+            modules.get( moduleIndex ).invoked( new Tuple2<Object, String>( moduleId, id._2() ) );
+        }
+    }
+
+    private Iterable<Statement> concat()
+    {
+        return () -> new Iterator<Statement>()
+        {
+            private int moduleIndex = -1;
+
+            private int idOffset;
+
+            private Iterator<Statement> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext()
+            {
+                while ( !current.hasNext() && moduleIndex + 1 < modules.size() )
+                {
+                    moduleIndex++;
+                    idOffset = idOffsets.get( moduleIndex );
+                    current = CollectionConverters.asJava( modules.get( moduleIndex ).statements().iterator() );
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Statement next()
+            {
+                if ( !hasNext() )
+                {
+                    throw new NoSuchElementException();
+                }
+                return withId( current.next(), idOffset );
+            }
+        };
+    }
+
+    /**
+     * Returns statement with id shifted by module's id offset. Statement is copied,
+     * so its invocation count and tests are the module statement's ones at the time of iteration.
+     */
+    private static Statement withId( Statement statement, int idOffset )
+    {
+        if ( idOffset == 0 )
+        {
+            return statement;
+        }
+        return statement.copy( statement.location(), idOffset + statement.id(), statement.start(), statement.end(),
+                               statement.line(), statement.desc(), statement.symbolName(), statement.treeName(),
+                               statement.branch(), statement.count(), statement.ignored(), statement.tests() );
+    }
+
+    private static int maxId( scala.collection.Iterable<Statement> statements )
+    {
+        int maxId = -1;
+        scala.collection.Iterator<Statement> it = statements.iterator();
+        while ( it.hasNext() )
+        {
+            maxId = Math.max( maxId, it.next().id() );
+        }
+        return maxId;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+import scoverage.domain.Coverage;
+
+/**
+ * Build-global accumulator of modules' measured coverage for aggregated report.
+ * <br>
+ * <br>
+ * Every module pushes its measured coverage when its report finishes, so loading of modules' data
+ * is spread over the build and runs concurrently with other modules. The module elected
+ * by {@link SCoverageAggregationCoordinator} then only takes accumulated modules' coverage,
+ * in reactor order, and writes aggregated report.
+ * <br>
+ * <br>
+ * Uses RepositorySystemSession.getData() as build-global storage, like {@link SCoverageSessionCache}.
+ * Accumulated values are plugin classes, so they are returned only if they were stored by the same
+ * plugin classloader, otherwise the module's data is loaded again.
+ */
+public final class SCoverageAggregationAccumulator
+{
+    private static final String ACCUMULATOR_KEY = SCoverageAggregationAccumulator.class.getName() + ".modules";
+
+    private SCoverageAggregationAccumulator()
+    {
+    }
+
+    /**
+     * Adds module's coverage.
+     *
+     * @param repositorySession repository system session providing build-global storage
+     * @param dataDirectory module's scoverage data directory
+     * @param moduleCoverage module's measured coverage and source roots
+     */
+    public static void add( RepositorySystemSession repositorySession, File dataDirectory,
+                            ModuleCoverage moduleCoverage )
+    {
+        modules( repositorySession ).put( dataDirectory.getAbsolutePath(), moduleCoverage );
+    }
+
+    /**
+     * Removes and returns module's coverage.
+     *
+     * @param repositorySession repository system session providing build-global storage
+     * @param dataDirectory module's scoverage data directory
+     * @return module's coverage or {@code null} if module did not add it
+     */
+    public static ModuleCoverage take( RepositorySystemSession repositorySession, File dataDirectory )
+    {
+        Object value = modules( repositorySession ).remove( dataDirectory.getAbsolutePath() );
+        return value instanceof ModuleCoverage moduleCoverage ? moduleCoverage : null;
+    }
+
+    /**
+     * Removes all accumulated modules' coverage.
+     *
+     * @param repositorySession repository system session providing build-global storage
+     */
+    public static void clear( RepositorySystemSession repositorySession )
+    {
+        modules( repositorySession ).clear();
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static Map<String, Object> modules( RepositorySystemSession repositorySession )
+    {
+        SessionData sessionData = repositorySession.getData();
+
+        // Same backward-compatible initialization as in SCoverageAggregationCoordinator
+        synchronized ( sessionData )
+        {
+            Map<String, Object> modules = (Map<String, Object>) sessionData.get( ACCUMULATOR_KEY );
+            if ( modules == null )
+            {
+                modules = new ConcurrentHashMap<String, Object>();
+                sessionData.set( ACCUMULATOR_KEY, modules );
+            }
+            return modules;
+        }
+    }
+
+    /**
+     * Coverage data loaded from one module's data directory.
+     */
+    public static final class ModuleCoverage
+    {
+        /** Measured coverage, {@code null} if the module has no instrumentation data. */
+        final Coverage coverage;
+
+        final List<File> sourceRoots;
+
+        ModuleCoverage( Coverage coverage, List<File> sourceRoots )
+        {
+            this.coverage = coverage;
+            this.sourceRoots = sourceRoots;
+        }
+    }
+}
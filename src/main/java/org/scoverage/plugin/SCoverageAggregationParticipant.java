@@ -0,0 +1,188 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Waits for aggregated reports written in background at the end of the build.
+ * <br>
+ * <br>
+ * Active only if the plugin is declared with {@code <extensions>true</extensions>}. Then the report goal
+ * with {@code asyncAggregation} enabled submits aggregated report writing to the participant's thread pool
+ * and returns, so the aggregating module's build thread is not blocked and the writing overlaps
+ * with building of the remaining modules. The pool is created when projects are read. At the end of the session
+ * this participant waits for all submitted reports, shuts the pool down and fails the build if any report failed.
+ * <br>
+ * <br>
+ * Maven ends the session after it logs the build result, so a failed background report is logged
+ * after the "BUILD SUCCESS" message and fails the build with an error exit code.
+ * <br>
+ * <br>
+ * Like {@link SCoverageAggregationCoordinator}, only standard Java types are stored
+ * in RepositorySystemSession.getData(), because the participant and the mojos can be loaded
+ * by different classloaders.
+ */
+@Named( "scoverage-aggregation" )
+@Singleton
+public class SCoverageAggregationParticipant
+    extends AbstractMavenLifecycleParticipant
+{
+    private static final String EXECUTOR_KEY = SCoverageAggregationParticipant.class.getName() + ".executor";
+    private static final String PENDING_KEY = SCoverageAggregationParticipant.class.getName() + ".pending";
+
+    /**
+     * Creates the session's thread pool writing aggregated reports.
+     *
+     * @param session Maven session
+     */
+    @Override
+    public void afterProjectsRead( MavenSession session )
+    {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool( Runtime.getRuntime().availableProcessors(),
+            r -> new Thread( r, "scoverage-aggregation-" + threadNumber.incrementAndGet() ) );
+        SessionData sessionData = session.getRepositorySession().getData();
+        synchronized ( sessionData )
+        {
+            sessionData.set( EXECUTOR_KEY, executor );
+        }
+    }
+
+    /**
+     * Waits for aggregated reports submitted during the build and shuts the thread pool down.
+     *
+     * @param session Maven session
+     * @throws MavenExecutionException if any aggregated report failed
+     */
+    @Override
+    public void afterSessionEnd( MavenSession session )
+        throws MavenExecutionException
+    {
+        try
+        {
+            awaitPending( session.getRepositorySession() );
+        }
+        finally
+        {
+            if ( executor( session.getRepositorySession() ) instanceof ExecutorService executor )
+            {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static void awaitPending( RepositorySystemSession repositorySession )
+        throws MavenExecutionException
+    {
+        Queue<Future<?>> pending = pending( repositorySession );
+        MavenExecutionException failure = null;
+        Future<?> future;
+        while ( ( future = pending.poll() ) != null )
+        {
+            try
+            {
+                future.get();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new MavenExecutionException( "Interrupted while waiting for aggregated coverage report", e );
+            }
+            catch ( ExecutionException e )
+            {
+                if ( failure == null )
+                {
+                    failure = new MavenExecutionException( "Aggregated coverage report generation failed: "
+                        + e.getCause().getMessage(), e.getCause() );
+                }
+            }
+        }
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+    /**
+     * Checks if the participant is active in the build, so tasks submitted with
+     * {@link #submit(RepositorySystemSession, Callable)} are awaited at the end of the session.
+     *
+     * @param repositorySession repository system session providing build-global storage
+     * @return {@code true} if the participant is active
+     */
+    public static boolean isActive( RepositorySystemSession repositorySession )
+    {
+        return executor( repositorySession ) instanceof ExecutorService executor && !executor.isShutdown();
+    }
+
+    /**
+     * Runs task on the participant's thread pool, the participant waits for it at the end of the session.
+     *
+     * @param repositorySession repository system session providing build-global storage
+     * @param task task to run
+     * @throws IllegalStateException if the participant is not active
+     */
+    public static void submit( RepositorySystemSession repositorySession, Callable<Void> task )
+    {
+        if ( !( executor( repositorySession ) instanceof ExecutorService executor ) )
+        {
+            throw new IllegalStateException( "Aggregation participant is not active" );
+        }
+        pending( repositorySession ).add( executor.submit( task ) );
+    }
+
+    private static Object executor( RepositorySystemSession repositorySession )
+    {
+        return repositorySession.getData().get( EXECUTOR_KEY );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static Queue<Future<?>> pending( RepositorySystemSession repositorySession )
+    {
+        SessionData sessionData = repositorySession.getData();
+
+        // Same backward-compatible initialization as in SCoverageAggregationCoordinator
+        synchronized ( sessionData )
+        {
+            Queue<Future<?>> pending = (Queue<Future<?>>) sessionData.get( PENDING_KEY );
+            if ( pending == null )
+            {
+                pending = new ConcurrentLinkedQueue<Future<?>>();
+                sessionData.set( PENDING_KEY, pending );
+            }
+            return pending;
+        }
+    }
+}
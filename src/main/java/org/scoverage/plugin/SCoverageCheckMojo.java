@@ -18,12 +18,15 @@
 package org.scoverage.plugin;
 
 import java.io.File;
-import java.util.Arrays;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
-import java.util.function.Function;
 import java.util.function.Predicate;
 
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Execute;
@@ -31,16 +34,9 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystemSession;
 
-import scala.Tuple2;
-import scala.jdk.javaapi.CollectionConverters;
-
-import scoverage.domain.Coverage;
-import scoverage.domain.CoverageMetrics;
 import scoverage.domain.DoubleFormat;
-import scoverage.domain.MeasuredFile;
-import scoverage.domain.MeasuredPackage;
-import scoverage.reporter.IOUtils;
 import scoverage.serialize.Serializer;
 
 /**
@@ -169,12 +165,34 @@ public class SCoverageCheckMojo
     @Parameter( property = "encoding", defaultValue = "${project.build.sourceEncoding}" )
     private String encoding;
 
+    /**
+     * Reuse coverage counters of measured coverage already loaded in this build by report generation,
+     * if coverage data did not change since it was loaded.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.useSessionCache", defaultValue = "true" )
+    private boolean useSessionCache;
+
     /**
      * Maven project to interact with.
      */
     @Parameter( defaultValue = "${project}", readonly = true, required = true )
     private MavenProject project;
 
+    /**
+     * The current Maven session.
+     */
+    @Parameter( defaultValue = "${session}", readonly = true, required = true )
+    private MavenSession session;
+
+    /**
+     * Repository system session for build-global storage.
+     */
+    @Parameter( defaultValue = "${repositorySystemSession}", readonly = true, required = true )
+    private RepositorySystemSession repositorySystemSession;
+
     /**
      * All Maven projects in the reactor.
      */
@@ -184,10 +202,11 @@ public class SCoverageCheckMojo
     /**
      * Checks tests coverage and optionally fails the build if minimum level not reached.
      * 
+     * @throws MojoExecutionException if coverage data cannot be read
      * @throws MojoFailureException if coverage is below minimumCoverage and failOnMinimumCoverage option set
      */
     @Override
-    public void execute() throws MojoFailureException
+    public void execute() throws MojoExecutionException, MojoFailureException
     {
         if ( "pom".equals( project.getPackaging() ) )
         {
@@ -224,25 +243,19 @@ public class SCoverageCheckMojo
             return;
         }
 
-        Coverage coverage = Serializer.deserialize( coverageFile, project.getBasedir() );
-        List<File> measurementFiles = Arrays.asList( IOUtils.findMeasurementFiles( dataDirectory ) );
-        scala.collection.Set<Tuple2<Object, String>> measurements =
-                IOUtils.invoked( CollectionConverters.asScala( measurementFiles ).toSeq(), encoding );
-        coverage.apply( measurements );
-
-        int branchCount = coverage.branchCount();
-        int statementCount = coverage.statementCount();
-        int invokedBranchesCount = coverage.invokedBranchesCount();
-        int invokedStatementCount = coverage.invokedStatementCount();
+        // Total, package and file counters are built in a single pass over statements
+        SCoverageRollup rollup = loadRollup();
+        SCoverageRollup.Metrics total = rollup.total();
 
         getLog().debug( String.format( "invokedBranchesCount:%d / branchCount:%d, invokedStatementCount:%d / statementCount:%d",
-                                      invokedBranchesCount, branchCount, invokedStatementCount, statementCount ) );
+                                      total.getInvokedBranchCount(), total.getBranchCount(),
+                                      total.getInvokedStatementCount(), total.getStatementCount() ) );
 
-        boolean ok = checkCoverage( getLog(), "Total", coverage,
+        boolean ok = checkCoverage( getLog(), "Total", total,
                                     minimumCoverage, minimumCoverageBranchTotal, true );
-        ok = checkCoverage( getLog(), "Package:", coverage.packages(), MeasuredPackage::name,
+        ok = checkCoverage( getLog(), "Package:", rollup.packages(),
                             minimumCoverageStmtPerPackage, minimumCoverageBranchPerPackage ) && ok;
-        ok = checkCoverage( getLog(), "File:", coverage.files(), MeasuredFile::filename,
+        ok = checkCoverage( getLog(), "File:", rollup.files(),
                             minimumCoverageStmtPerFile, minimumCoverageBranchPerFile ) && ok;
 
         if ( !ok && failOnMinimumCoverage )
@@ -256,23 +269,54 @@ public class SCoverageCheckMojo
 
     // Private utility methods
 
+    private SCoverageRollup loadRollup()
+        throws MojoExecutionException
+    {
+        if ( useSessionCache )
+        {
+            // Report generation caches coverage with source paths resolved against execution root directory
+            File sourceRoot = new File( session.getExecutionRootDirectory() );
+            SCoverageRollup cached =
+                SCoverageSessionCache.get( repositorySystemSession, SCoverageSessionCache.key( dataDirectory, sourceRoot ) );
+            if ( cached != null )
+            {
+                getLog().debug( "Reusing scoverage data loaded in this build" );
+                return cached;
+            }
+        }
+
+        try
+        {
+            // Check needs only statement columns, not statement objects
+            SCoverageStatementStore store =
+                SCoverageInstrumentationCache.loadStore( dataDirectory, project.getBasedir(), getLog() );
+            // Check needs only invoked statement ids, not (id, test name) pairs
+            BitSet invokedIds = SCoverageMeasurements.loadInvokedIds( dataDirectory, encoding,
+                                                                     Runtime.getRuntime().availableProcessors() )
+                .invokedIds();
+            return SCoverageRollup.of( store, invokedIds );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Cannot read scoverage data", e );
+        }
+    }
+
     private static boolean is100( Double d )
     {
         return Math.abs( 100 - d ) <= 0.00001d;
     }
 
-    private static <T extends CoverageMetrics >
-        boolean checkCoverage( Log logger, String metricPrefix,
-                               scala.collection.Iterable< T > metrics,
-                               Function< T, String > toName,
-                               double minStmt, double minBranch )
+    private static boolean checkCoverage( Log logger, String metricPrefix,
+                                          Collection<SCoverageRollup.Metrics> metrics,
+                                          double minStmt, double minBranch )
     {
         return minStmt <= 0 && minBranch <= 0 || checkAll(metrics, cov ->
-            checkCoverage(logger, metricPrefix + toName.apply(cov), cov, minStmt, minBranch, false)
+            checkCoverage(logger, metricPrefix + cov.getName(), cov, minStmt, minBranch, false)
         );
     }
 
-    private static boolean checkCoverage( Log logger, String metric, CoverageMetrics metrics,
+    private static boolean checkCoverage( Log logger, String metric, SCoverageRollup.Metrics metrics,
                                           double minStmt, double minBranch, boolean logSuccessInfo )
     {
         boolean stmt = checkCoverage( logger, "Statement:" + metric,
@@ -328,10 +372,10 @@ public class SCoverageCheckMojo
         }
     }
 
-    private static <T> boolean checkAll( scala.collection.Iterable<T> iterable, Predicate<T> predicate )
+    private static <T> boolean checkAll( Collection<T> collection, Predicate<T> predicate )
     {
         boolean ok = true;
-        for ( T elem : CollectionConverters.asJava( iterable ) )
+        for ( T elem : collection )
         {
             ok = predicate.test( elem ) && ok;
         }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import scoverage.domain.DoubleFormat;
+import scoverage.reporter.CoberturaXmlWriter;
+
+/**
+ * Streaming Cobertura XML report writer, writing {@code cobertura.xml} file
+ * in the same format as {@link CoberturaXmlWriter}.
+ */
+public class SCoverageCoberturaXmlWriter
+    extends SCoverageStreamingXmlWriter
+{
+    /**
+     * Creates Cobertura XML report writer.
+     *
+     * @param sourceIndex index of coverage source files
+     * @param outputDirectory report output directory
+     * @param encoding report file encoding, platform default if {@code null}
+     */
+    public SCoverageCoberturaXmlWriter( SCoverageSourceIndex sourceIndex, File outputDirectory, String encoding )
+    {
+        super( sourceIndex, new File( outputDirectory, "cobertura.xml" ), encoding );
+    }
+
+    @Override
+    protected void writeDocument( XMLStreamWriter xml, SortedStatements statements, SCoverageRollup.Metrics total )
+        throws XMLStreamException
+    {
+        xml.writeStartDocument( "1.0" );
+        xml.writeCharacters( "\n" );
+        xml.writeDTD( "<!DOCTYPE coverage SYSTEM \"http://cobertura.sourceforge.net/xml/coverage-04.dtd\">" );
+        xml.writeCharacters( "\n" );
+
+        xml.writeStartElement( "coverage" );
+        xml.writeAttribute( "line-rate", DoubleFormat.twoFractionDigits( total.statementCoverage() ) );
+        xml.writeAttribute( "lines-valid", Integer.toString( total.getStatementCount() ) );
+        xml.writeAttribute( "lines-covered", Integer.toString( total.getInvokedStatementCount() ) );
+        xml.writeAttribute( "branches-valid", Integer.toString( total.getBranchCount() ) );
+        xml.writeAttribute( "branches-covered", Integer.toString( total.getInvokedBranchCount() ) );
+        xml.writeAttribute( "branch-rate", DoubleFormat.twoFractionDigits( total.branchCoverage() ) );
+        xml.writeAttribute( "complexity", "0" );
+        xml.writeAttribute( "version", "1.0" );
+        xml.writeAttribute( "timestamp", Long.toString( System.currentTimeMillis() ) );
+
+        startElement( xml, 1, "sources" );
+        startElement( xml, 2, "source" );
+        xml.writeCharacters( "--source" );
+        xml.writeEndElement();
+        for ( File sourceRoot : sourceIndex.sourceRoots() )
+        {
+            if ( sourceRoot.isDirectory() )
+            {
+                startElement( xml, 2, "source" );
+                xml.writeCharacters( canonicalPath( sourceRoot ).replace( File.separator, "/" ) );
+                xml.writeEndElement();
+            }
+        }
+        endElement( xml, 1 );
+
+        startElement( xml, 1, "packages" );
+        for ( int p = 0; p < statements.size(); )
+        {
+            int packageEnd = groupEnd( statements, p, statements.size(), PACKAGE );
+            writePackage( xml, statements, p, packageEnd );
+            p = packageEnd;
+        }
+        endElement( xml, 1 );
+        endElement( xml, 0 );
+        xml.writeEndDocument();
+    }
+
+    private void writePackage( XMLStreamWriter xml, SortedStatements statements, int from, int to )
+        throws XMLStreamException
+    {
+        startElement( xml, 2, "package" );
+        xml.writeAttribute( "name", statements.get( from ).location().packageName() );
+        writeRates( xml, metrics( statements, from, to ) );
+        startElement( xml, 3, "classes" );
+        for ( int c = from; c < to; )
+        {
+            int classEnd = groupEnd( statements, c, to, CLASS );
+            writeClass( xml, statements, c, classEnd );
+            c = classEnd;
+        }
+        endElement( xml, 3 );
+        endElement( xml, 2 );
+    }
+
+    private void writeClass( XMLStreamWriter xml, SortedStatements statements, int from, int to )
+        throws XMLStreamException
+    {
+        startElement( xml, 4, "class" );
+        xml.writeAttribute( "name", statements.get( from ).location().fullClassName() );
+        xml.writeAttribute( "filename", relativeSource( statements.get( from ).source() ) );
+        writeRates( xml, metrics( statements, from, to ) );
+
+        startElement( xml, 5, "methods" );
+        for ( int m = from; m < to; )
+        {
+            int methodEnd = groupEnd( statements, m, to, METHOD );
+            startElement( xml, 6, "method" );
+            xml.writeAttribute( "name", String.valueOf( statements.get( m ).location().method() ) );
+            xml.writeAttribute( "signature", "()V" );
+            writeRates( xml, metrics( statements, m, methodEnd ) );
+            writeLines( xml, statements, m, methodEnd, 7 );
+            endElement( xml, 6 );
+            m = methodEnd;
+        }
+        endElement( xml, 5 );
+        writeLines( xml, statements, from, to, 5 );
+        endElement( xml, 4 );
+    }
+
+    private static void writeRates( XMLStreamWriter xml, SCoverageRollup.Metrics metrics )
+        throws XMLStreamException
+    {
+        xml.writeAttribute( "line-rate", DoubleFormat.twoFractionDigits( metrics.statementCoverage() ) );
+        xml.writeAttribute( "branch-rate", DoubleFormat.twoFractionDigits( metrics.branchCoverage() ) );
+        xml.writeAttribute( "complexity", "0" );
+    }
+
+    private static void writeLines( XMLStreamWriter xml, SortedStatements statements, int from, int to, int depth )
+        throws XMLStreamException
+    {
+        startElement( xml, depth, "lines" );
+        for ( int i = from; i < to; i++ )
+        {
+            emptyElement( xml, depth + 1, "line" );
+            xml.writeAttribute( "number", Integer.toString( statements.get( i ).line() ) );
+            xml.writeAttribute( "hits", Integer.toString( statements.get( i ).count() ) );
+            xml.writeAttribute( "branch", Boolean.toString( statements.get( i ).branch() ) );
+        }
+        endElement( xml, depth );
+    }
+
+    private static String canonicalPath( File file )
+        throws XMLStreamException
+    {
+        try
+        {
+            return file.getCanonicalPath();
+        }
+        catch ( IOException e )
+        {
+            throw new XMLStreamException( e );
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Merges measurement files written during tests into one compacted measurement file.
+ * <br>
+ * <br>
+ * Tests executed in many forks and threads write many measurement files, often with repeated
+ * statement ids. All of them are merged into one file with deduplicated measurements sorted
+ * by statement id and the original files are removed, so report and check goals read one small file.
+ * <br>
+ * <br>
+ * Compacted text file keeps the {@code scoverage.measurements.} name prefix and the measurements file format,
+ * so it is read by older plugin versions and other scoverage tools. Binary file is read only by this plugin
+ * version or newer.
+ * <br>
+ * <br>
+ * This is internal mojo, executed in forked {@code scoverage} life cycle after tests.
+ * <br>
+ *
+ * @since 2.1.6
+ */
+@Mojo( name = "compact-measurements", defaultPhase = LifecyclePhase.TEST, threadSafe = true )
+public class SCoverageCompactMeasurementsMojo
+    extends AbstractMojo
+{
+    /**
+     * Allows SCoverage to be skipped.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.skip", defaultValue = "false" )
+    private boolean skip;
+
+    /**
+     * Enables measurement files compaction.
+     * <br>
+     * <br>
+     * Compaction removes the original {@code scoverage.measurements.*} files.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.compactMeasurements", defaultValue = "true" )
+    private boolean compactMeasurements;
+
+    /**
+     * Format of compacted measurements file, {@code text} or {@code binary}.
+     * <br>
+     * <br>
+     * Text format is the scoverage measurements file format.
+     * Binary format stores invoked statement ids as a dense bit set and test names in a dictionary,
+     * it is read without text parsing by report and check goals. Binary file is not read by older plugin versions
+     * and other scoverage tools, they find no measurements in compacted data directory.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.measurementsFormat", defaultValue = "text" )
+    private String measurementsFormat;
+
+    /**
+     * Directory where the coverage files should be written.
+     */
+    @Parameter( property = "scoverage.dataDirectory", defaultValue = "${project.build.directory}/scoverage-data", required = true, readonly = true )
+    private File dataDirectory;
+
+    /**
+     * The file encoding to use when reading and writing measurement files.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "encoding", defaultValue = "${project.build.sourceEncoding}" )
+    private String encoding;
+
+    /**
+     * Maven project to interact with.
+     */
+    @Parameter( defaultValue = "${project}", readonly = true, required = true )
+    private MavenProject project;
+
+    /**
+     * Merges measurement files into one compacted measurement file.
+     *
+     * @throws MojoExecutionException if measurement files cannot be compacted
+     */
+    @Override
+    public void execute()
+        throws MojoExecutionException
+    {
+        if ( "pom".equals( project.getPackaging() ) )
+        {
+            return;
+        }
+
+        if ( skip || !compactMeasurements )
+        {
+            return;
+        }
+
+        if ( !dataDirectory.isDirectory() )
+        {
+            return;
+        }
+
+        boolean binary = "binary".equals( measurementsFormat );
+        if ( !binary && !"text".equals( measurementsFormat ) )
+        {
+            throw new MojoExecutionException( String.format( "Unsupported measurements format \"%s\", use \"text\" or \"binary\"",
+                                                             measurementsFormat ) );
+        }
+
+        long ts = System.currentTimeMillis();
+
+        try
+        {
+            int merged = SCoverageMeasurements.compact( dataDirectory, encoding, binary );
+            getLog().debug( String.format( "Compacted %d measurement files", merged ) );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "SCoverage measurement files compaction failed", e );
+        }
+
+        long te = System.currentTimeMillis();
+        getLog().debug( String.format( "Mojo execution time: %d ms", te - ts ) );
+    }
+
+}
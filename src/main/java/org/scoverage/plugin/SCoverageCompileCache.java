@@ -0,0 +1,335 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import scoverage.domain.Constants;
+import scoverage.serialize.Serializer;
+
+/**
+ * Local cache of instrumented compilation results.
+ * <br>
+ * <br>
+ * Cache entry contains compiler output (class and TASTy files) of instrumented classes directory
+ * and {@code scoverage.coverage} instrumentation data file of one module. Resources copied to classes directory
+ * by {@code process-resources} phase are not part of the key, so they are neither stored nor restored.
+ * <br>
+ * <br>
+ * Entries are stored in {@code <cache directory>/<key>} directories, where key is a SHA-256 hash
+ * of source files, compile classpath, Scala version, scalac arguments added by {@link SCoveragePreCompileMojo}
+ * and compiler settings (compiler plugins' configuration).
+ * Scalac arguments contain absolute data directory and source root paths, so entries are not shared
+ * between different checkouts of a project.
+ * <br>
+ * <br>
+ * Source files and classpath directories are hashed by content, classpath files (jars) by path, size
+ * and modification time. New entries are written to a temporary directory and then renamed,
+ * so concurrent builds never see partially written entries.
+ */
+public final class SCoverageCompileCache
+{
+    private static final String CLASSES_DIRECTORY = "classes";
+
+    private static final List<String> COMPILER_OUTPUT_EXTENSIONS = Arrays.asList( ".class", ".tasty" );
+
+    private final File cacheDirectory;
+
+    private final String key;
+
+    private boolean restored;
+
+    /**
+     * Creates cache entry accessor.
+     *
+     * @param cacheDirectory cache directory
+     * @param key entry key
+     */
+    public SCoverageCompileCache( File cacheDirectory, String key )
+    {
+        this.cacheDirectory = cacheDirectory;
+        this.key = key;
+    }
+
+    /**
+     * Calculates cache key.
+     *
+     * @param sourceRoots compile source roots
+     * @param classpath compile classpath elements
+     * @param scalaVersion Scala version
+     * @param scalacArgs scalac arguments added for instrumentation
+     * @param compilerSettings compiler settings, in stable order
+     * @return hex encoded key
+     * @throws IOException if source files cannot be read
+     */
+    public static String key( List<String> sourceRoots, List<File> classpath, String scalaVersion,
+                              String scalacArgs, List<String> compilerSettings )
+        throws IOException
+    {
+        MessageDigest digest = sha256();
+        update( digest, scalaVersion );
+        update( digest, scalacArgs );
+        for ( String compilerSetting : compilerSettings )
+        {
+            update( digest, "compiler-setting" );
+            update( digest, compilerSetting );
+        }
+        for ( String sourceRoot : sourceRoots )
+        {
+            update( digest, "source-root" );
+            updateDirectory( digest, new File( sourceRoot ) );
+        }
+        for ( File element : classpath )
+        {
+            update( digest, "classpath" );
+            if ( element.isDirectory() )
+            {
+                updateDirectory( digest, element );
+            }
+            else
+            {
+                update( digest, element.getAbsolutePath() + ':' + element.length() + ':' + element.lastModified() );
+            }
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for ( byte b : digest.digest() )
+        {
+            hex.append( String.format( "%02x", b ) );
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Returns entry key.
+     *
+     * @return entry key
+     */
+    public String getKey()
+    {
+        return key;
+    }
+
+    /**
+     * Returns {@code true} if compilation results were restored from this entry.
+     *
+     * @return {@code true} if entry was restored
+     */
+    public boolean isRestored()
+    {
+        return restored;
+    }
+
+    /**
+     * Restores instrumented classes and instrumentation data from cache entry, if it exists.
+     * <br>
+     * Classes directory content is replaced with cached compiler output. Restore runs before
+     * {@code process-resources} phase, so resources are then copied from current resource directories.
+     *
+     * @param classesDirectory instrumented classes directory
+     * @param dataDirectory scoverage data directory
+     * @return {@code true} if entry existed and was restored
+     * @throws IOException if entry cannot be restored
+     */
+    public boolean restore( File classesDirectory, File dataDirectory )
+        throws IOException
+    {
+        Path entry = new File( cacheDirectory, key ).toPath();
+        Path cachedCoverageFile = entry.resolve( Constants.CoverageFileName() );
+        if ( !Files.isRegularFile( cachedCoverageFile ) )
+        {
+            return false;
+        }
+
+        delete( classesDirectory.toPath() );
+        copy( entry.resolve( CLASSES_DIRECTORY ), classesDirectory.toPath() );
+        Files.createDirectories( dataDirectory.toPath() );
+        Files.copy( cachedCoverageFile, Serializer.coverageFile( dataDirectory ).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING );
+        restored = true;
+        return true;
+    }
+
+    /**
+     * Stores compiler output of instrumented classes directory and instrumentation data in cache entry.
+     * <br>
+     * Nothing is stored if instrumentation data file does not exist or entry already exists.
+     *
+     * @param classesDirectory instrumented classes directory
+     * @param dataDirectory scoverage data directory
+     * @return {@code true} if entry was stored
+     * @throws IOException if entry cannot be stored
+     */
+    public boolean store( File classesDirectory, File dataDirectory )
+        throws IOException
+    {
+        File coverageFile = Serializer.coverageFile( dataDirectory );
+        Path entry = new File( cacheDirectory, key ).toPath();
+        if ( !coverageFile.isFile() || Files.exists( entry ) )
+        {
+            return false;
+        }
+
+        Files.createDirectories( cacheDirectory.toPath() );
+        Path temporaryEntry = Files.createTempDirectory( cacheDirectory.toPath(), key + ".tmp" );
+        try
+        {
+            copy( classesDirectory.toPath(), temporaryEntry.resolve( CLASSES_DIRECTORY ) );
+            Files.copy( coverageFile.toPath(), temporaryEntry.resolve( coverageFile.getName() ) );
+            Files.move( temporaryEntry, entry, StandardCopyOption.ATOMIC_MOVE );
+            return true;
+        }
+        catch ( FileAlreadyExistsException | DirectoryNotEmptyException e )
+        {
+            // stored concurrently by another build
+            return false;
+        }
+        finally
+        {
+            delete( temporaryEntry );
+        }
+    }
+
+    private static MessageDigest sha256()
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-256" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static void update( MessageDigest digest, String value )
+    {
+        byte[] bytes = String.valueOf( value ).getBytes( StandardCharsets.UTF_8 );
+        updateLength( digest, bytes.length );
+        digest.update( bytes );
+    }
+
+    private static void updateLength( MessageDigest digest, long length )
+    {
+        for ( int shift = 56; shift >= 0; shift -= 8 )
+        {
+            digest.update( (byte) ( length >>> shift ) );
+        }
+    }
+
+    private static void updateDirectory( MessageDigest digest, File directory )
+        throws IOException
+    {
+        if ( !directory.isDirectory() )
+        {
+            return;
+        }
+        Path root = directory.toPath();
+        List<Path> files;
+        try ( Stream<Path> paths = Files.walk( root ) )
+        {
+            files = paths.filter( Files::isRegularFile ).sorted().collect( Collectors.toList() );
+        }
+        byte[] buffer = new byte[ 8192 ];
+        for ( Path file : files )
+        {
+            update( digest, root.relativize( file ).toString().replace( File.separatorChar, '/' ) );
+            updateLength( digest, Files.size( file ) );
+            try ( InputStream in = new DigestInputStream( Files.newInputStream( file ), digest ) )
+            {
+                while ( in.read( buffer ) >= 0 )
+                {
+                    // content is digested while reading
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies compiler output files of source directory to target directory.
+     */
+    private static void copy( Path source, Path target )
+        throws IOException
+    {
+        Files.createDirectories( target );
+        if ( !Files.isDirectory( source ) )
+        {
+            return;
+        }
+        try ( Stream<Path> paths = Files.walk( source ) )
+        {
+            for ( Path path : (Iterable<Path>) paths::iterator )
+            {
+                Path copy = target.resolve( source.relativize( path ).toString() );
+                if ( Files.isDirectory( path ) )
+                {
+                    Files.createDirectories( copy );
+                }
+                else if ( isCompilerOutput( path ) )
+                {
+                    Files.copy( path, copy, StandardCopyOption.REPLACE_EXISTING );
+                }
+            }
+        }
+    }
+
+    private static boolean isCompilerOutput( Path path )
+    {
+        String name = path.getFileName().toString();
+        for ( String extension : COMPILER_OUTPUT_EXTENSIONS )
+        {
+            if ( name.endsWith( extension ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void delete( Path path )
+        throws IOException
+    {
+        if ( !Files.exists( path ) )
+        {
+            return;
+        }
+        try ( Stream<Path> paths = Files.walk( path ) )
+        {
+            for ( Path p : (Iterable<Path>) paths.sorted( Comparator.reverseOrder() )::iterator )
+            {
+                Files.delete( p );
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+
+/**
+ * Deduplicates strings and locations of deserialized coverage.
+ * <br>
+ * <br>
+ * Scoverage serializer creates new location and new strings (source path, package, class, method,
+ * symbol and tree name) for every statement, although they repeat for all statements of a method or file.
+ * Deduplicator replaces them with one shared instance per value, taken from a dictionary local
+ * to one deduplicated coverage, so nothing is retained after loading (unlike {@link String#intern()}).
+ * Statement descriptions are mostly unique, they are not deduplicated.
+ */
+public final class SCoverageDeduplicator
+{
+    private final Map<String, String> strings = new HashMap<String, String>();
+
+    private final Map<List<Object>, Location> locations = new HashMap<List<Object>, Location>();
+
+    private SCoverageDeduplicator()
+    {
+    }
+
+    /**
+     * Returns coverage with statements sharing equal locations and strings.
+     * Statements already sharing them are not copied.
+     *
+     * @param coverage deserialized coverage
+     * @return deduplicated coverage
+     */
+    public static Coverage deduplicate( Coverage coverage )
+    {
+        SCoverageDeduplicator deduplicator = new SCoverageDeduplicator();
+        Coverage deduplicated = new Coverage();
+        scala.collection.Iterator<Statement> it = coverage.statements().iterator();
+        while ( it.hasNext() )
+        {
+            deduplicated.add( deduplicator.statement( it.next() ) );
+        }
+        it = coverage.ignoredStatements().iterator();
+        while ( it.hasNext() )
+        {
+            deduplicated.addIgnoredStatement( deduplicator.statement( it.next() ) );
+        }
+        return deduplicated;
+    }
+
+    private Statement statement( Statement statement )
+    {
+        Location location = location( statement.location() );
+        String symbolName = string( statement.symbolName() );
+        String treeName = string( statement.treeName() );
+        if ( location == statement.location() && symbolName == statement.symbolName()
+            && treeName == statement.treeName() )
+        {
+            return statement;
+        }
+        return statement.copy( location, statement.id(), statement.start(), statement.end(), statement.line(),
+                               statement.desc(), symbolName, treeName, statement.branch(), statement.count(),
+                               statement.ignored(), statement.tests() );
+    }
+
+    private Location location( Location location )
+    {
+        String packageName = string( location.packageName() );
+        String className = string( location.className() );
+        String fullClassName = string( location.fullClassName() );
+        String method = string( location.method() );
+        String sourcePath = string( location.sourcePath() );
+        List<Object> key =
+            Arrays.asList( packageName, className, fullClassName, location.classType(), method, sourcePath );
+        Location shared = locations.get( key );
+        if ( shared == null )
+        {
+            shared = packageName == location.packageName() && className == location.className()
+                && fullClassName == location.fullClassName() && method == location.method()
+                && sourcePath == location.sourcePath() ? location
+                : new Location( packageName, className, fullClassName, location.classType(), method, sourcePath );
+            locations.put( key, shared );
+        }
+        return shared;
+    }
+
+    private String string( String value )
+    {
+        if ( value == null )
+        {
+            return null;
+        }
+        String shared = strings.putIfAbsent( value, value );
+        return shared != null ? shared : value;
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import scala.jdk.javaapi.CollectionConverters;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+import scoverage.reporter.ScoverageHtmlWriter;
+
+/**
+ * Manifest of HTML report inputs, used to update HTML report output incrementally.
+ * <br>
+ * <br>
+ * Manifest records a hash of report-wide inputs (writer version, encoding, source roots and output directory)
+ * and an input hash of every source file page. Source file page input hash covers measured statements
+ * of the source file and size and modification time of the source file, so source files are not read.
+ * Only pages of source files with changed inputs are written again. Index, overview and package pages
+ * depend on all statements, they are written again if any source file page changed.
+ * <br>
+ * <br>
+ * Manifest is stored outside of the HTML report output directory, so it is not published with the report.
+ */
+public final class SCoverageHtmlManifest
+{
+    private static final String INPUTS_KEY = "inputs";
+
+    private final String inputHash;
+
+    private final Map<String, String> pageHashes;
+
+    private final Map<String, String> pageSources;
+
+    private SCoverageHtmlManifest( String inputHash, Map<String, String> pageHashes, Map<String, String> pageSources )
+    {
+        this.inputHash = inputHash;
+        this.pageHashes = pageHashes;
+        this.pageSources = pageSources;
+    }
+
+    /**
+     * Calculates HTML report inputs manifest.
+     *
+     * @param coverage measured coverage
+     * @param sourceIndex index of coverage source files
+     * @param encoding source files encoding
+     * @param outputDirectory HTML report output directory
+     * @return manifest of current inputs
+     */
+    public static SCoverageHtmlManifest of( Coverage coverage, SCoverageSourceIndex sourceIndex, String encoding,
+                                            File outputDirectory )
+    {
+        MessageDigest digest = newDigest();
+        update( digest, String.valueOf( ScoverageHtmlWriter.class.getPackage().getImplementationVersion() ) );
+        update( digest, String.valueOf( encoding ) );
+        update( digest, outputDirectory.getAbsolutePath() );
+        for ( File sourceRoot : sourceIndex.usedSourceRoots() )
+        {
+            update( digest, sourceRoot.getAbsolutePath() );
+        }
+        String inputHash = hex( digest.digest() );
+
+        // Statements are hashed in iteration order, which is stable for the same coverage data,
+        // so they do not have to be collected and sorted.
+        Map<String, MessageDigest> sourceDigests = new HashMap<String, MessageDigest>();
+        for ( scala.collection.Iterable<Statement> statements : Arrays.asList( coverage.statements(),
+                                                                               coverage.ignoredStatements() ) )
+        {
+            scala.collection.Iterator<Statement> it = statements.iterator();
+            while ( it.hasNext() )
+            {
+                Statement statement = it.next();
+                String source = statement.source();
+                if ( source == null )
+                {
+                    continue;
+                }
+                MessageDigest sourceDigest = sourceDigests.computeIfAbsent( source, s -> newDigest() );
+
+                Location location = statement.location();
+                update( sourceDigest, location.packageName() + '\t' + location.fullClassName() + '\t'
+                    + location.classType() + '\t' + location.method() + '\t' + statement.id() + '\t'
+                    + statement.start() + '\t' + statement.end() + '\t' + statement.line() + '\t'
+                    + statement.count() + '\t' + statement.branch() + '\t' + statement.ignored() + '\t'
+                    + statement.desc() + '\t' + statement.symbolName() + '\t' + statement.treeName() );
+                if ( !statement.tests().isEmpty() )
+                {
+                    TreeSet<String> tests = new TreeSet<String>( CollectionConverters.asJava( statement.tests() ) );
+                    update( sourceDigest, tests.toString() );
+                }
+            }
+        }
+
+        Map<String, String> pageHashes = new TreeMap<String, String>();
+        Map<String, String> pageSources = new HashMap<String, String>();
+        for ( Map.Entry<String, MessageDigest> sourceDigest : sourceDigests.entrySet() )
+        {
+            String source = sourceDigest.getKey();
+            File sourceFile = new File( source );
+            update( sourceDigest.getValue(), source + '\t' + sourceFile.length() + '\t' + sourceFile.lastModified() );
+            String relativePath = sourceIndex.relativePath( source );
+            String page = ( relativePath != null ? relativePath : source ) + ".html";
+            pageHashes.put( page, hex( sourceDigest.getValue().digest() ) );
+            pageSources.put( page, source );
+        }
+        return new SCoverageHtmlManifest( inputHash, pageHashes, pageSources );
+    }
+
+    /**
+     * Reads manifest of previously written HTML report.
+     *
+     * @param manifestFile manifest file
+     * @return manifest or {@code null} if there is no manifest
+     * @throws IOException if manifest cannot be read
+     */
+    public static SCoverageHtmlManifest read( File manifestFile )
+        throws IOException
+    {
+        if ( !manifestFile.isFile() )
+        {
+            return null;
+        }
+
+        String inputHash = null;
+        Map<String, String> pageHashes = new TreeMap<String, String>();
+        try ( BufferedReader reader = Files.newBufferedReader( manifestFile.toPath(), StandardCharsets.UTF_8 ) )
+        {
+            String line = reader.readLine();
+            while ( line != null )
+            {
+                int separator = line.indexOf( ' ' );
+                if ( separator > 0 )
+                {
+                    String hash = line.substring( 0, separator );
+                    String page = line.substring( separator + 1 );
+                    if ( INPUTS_KEY.equals( page ) && inputHash == null )
+                    {
+                        inputHash = hash;
+                    }
+                    else
+                    {
+                        pageHashes.put( page, hash );
+                    }
+                }
+                line = reader.readLine();
+            }
+        }
+        return inputHash != null ? new SCoverageHtmlManifest( inputHash, pageHashes, new HashMap<String, String>() )
+            : null;
+    }
+
+    /**
+     * Returns source files whose pages must be written again, because their inputs changed since previous report
+     * or their pages are missing in the output directory. All source files if report-wide inputs changed.
+     *
+     * @param previous manifest of previous report, may be {@code null}
+     * @param outputDirectory HTML report output directory
+     * @return source file paths
+     */
+    public Set<String> changedSources( SCoverageHtmlManifest previous, File outputDirectory )
+    {
+        boolean all = previous == null || !inputHash.equals( previous.inputHash );
+        Set<String> changedSources = new HashSet<String>();
+        for ( Map.Entry<String, String> pageHash : pageHashes.entrySet() )
+        {
+            String page = pageHash.getKey();
+            if ( all || !pageHash.getValue().equals( previous.pageHashes.get( page ) )
+                || !new File( outputDirectory, page ).isFile() )
+            {
+                changedSources.add( pageSources.get( page ) );
+            }
+        }
+        return changedSources;
+    }
+
+    /**
+     * Returns pages of previous report of source files not measured anymore.
+     *
+     * @param previous manifest of previous report, may be {@code null}
+     * @return page paths relative to output directory, empty if report-wide inputs changed
+     */
+    public List<String> removedPages( SCoverageHtmlManifest previous )
+    {
+        List<String> removedPages = new ArrayList<String>();
+        if ( previous != null && inputHash.equals( previous.inputHash ) )
+        {
+            for ( String page : previous.pageHashes.keySet() )
+            {
+                if ( !pageHashes.containsKey( page ) )
+                {
+                    removedPages.add( page );
+                }
+            }
+        }
+        return removedPages;
+    }
+
+    /**
+     * Writes manifest, replacing previous one only after it is completely written.
+     *
+     * @param manifestFile manifest file
+     * @throws IOException if manifest cannot be written
+     */
+    public void write( File manifestFile )
+        throws IOException
+    {
+        File tmpManifestFile = new File( manifestFile.getPath() + ".tmp" );
+        Files.createDirectories( manifestFile.getAbsoluteFile().getParentFile().toPath() );
+        try ( BufferedWriter writer = Files.newBufferedWriter( tmpManifestFile.toPath(), StandardCharsets.UTF_8 ) )
+        {
+            writer.write( inputHash + ' ' + INPUTS_KEY );
+            writer.newLine();
+            for ( Map.Entry<String, String> entry : pageHashes.entrySet() )
+            {
+                writer.write( entry.getValue() + ' ' + entry.getKey() );
+                writer.newLine();
+            }
+        }
+        Files.move( tmpManifestFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+    }
+
+    /**
+     * Deletes directory with all its content, if it exists.
+     *
+     * @param directory directory to delete
+     * @throws IOException if directory cannot be deleted
+     */
+    public static void deleteRecursively( Path directory )
+        throws IOException
+    {
+        if ( !Files.exists( directory ) )
+        {
+            return;
+        }
+        Files.walkFileTree( directory, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile( Path file, BasicFileAttributes attrs )
+                throws IOException
+            {
+                Files.delete( file );
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory( Path dir, IOException e )
+                throws IOException
+            {
+                if ( e != null )
+                {
+                    throw e;
+                }
+                Files.delete( dir );
+                return FileVisitResult.CONTINUE;
+            }
+        } );
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-256" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            // every Java platform implementation is required to support SHA-256
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static void update( MessageDigest digest, String value )
+    {
+        digest.update( ( value + '\n' ).getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    private static String hex( byte[] bytes )
+    {
+        return HexFormat.of().formatHex( bytes );
+    }
+}
@@ -0,0 +1,481 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.logging.Log;
+
+import scoverage.domain.ClassType;
+import scoverage.domain.ClassType$;
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+import scoverage.serialize.Serializer;
+
+/**
+ * Binary cache of module's instrumentation data, stored next to {@code scoverage.coverage} file.
+ * <br>
+ * <br>
+ * Cache file contains a string dictionary, a location table referencing dictionary entries
+ * and statement fields stored as primitive columns. Equal strings and equal locations
+ * are shared by all statements read from the cache.
+ * Source paths are stored relative to the source root, so the same cache file
+ * can be read against different source roots.
+ * <br>
+ * <br>
+ * Cache file is valid only for instrumentation data file of the size and modification time
+ * recorded in its header.
+ */
+public final class SCoverageInstrumentationCache
+{
+    private static final String CACHE_FILE_NAME = "scoverage.coverage.bin";
+
+    private static final int MAGIC = 0x53434F43; // "SCOC"
+
+    private static final int VERSION = 1;
+
+    private static final int NULL_INDEX = -1;
+
+    private SCoverageInstrumentationCache()
+    {
+    }
+
+    /**
+     * Loads module's instrumentation data, from cache file if it is valid,
+     * otherwise from instrumentation data file, writing new cache file.
+     * Strings and locations of deserialized instrumentation data are deduplicated.
+     * Cache file problems are logged, they never fail loading.
+     *
+     * @param dataDirectory module's scoverage data directory
+     * @param sourceRoot root directory source paths are relative to
+     * @param log logger
+     * @return instrumentation data
+     */
+    public static Coverage load( File dataDirectory, File sourceRoot, Log log )
+    {
+        try
+        {
+            Coverage cached = read( dataDirectory, sourceRoot );
+            if ( cached != null )
+            {
+                return cached;
+            }
+        }
+        catch ( IOException e )
+        {
+            log.debug( String.format( "Cannot read scoverage instrumentation cache [%s]: %s",
+                                      dataDirectory.getAbsolutePath(), e.getMessage() ) );
+        }
+
+        Coverage coverage = SCoverageDeduplicator.deduplicate(
+            Serializer.deserialize( Serializer.coverageFile( dataDirectory ), sourceRoot ) );
+        try
+        {
+            write( coverage, dataDirectory, sourceRoot );
+        }
+        catch ( IOException e )
+        {
+            log.warn( String.format( "Cannot write scoverage instrumentation cache [%s]: %s",
+                                     dataDirectory.getAbsolutePath(), e.getMessage() ) );
+        }
+        return coverage;
+    }
+
+    /**
+     * Loads module's instrumentation data into a statement store, from cache file if it is valid,
+     * otherwise from instrumentation data file, writing new cache file.
+     * Statements read from cache file are stored without creating statement objects.
+     * Cache file problems are logged, they never fail loading.
+     *
+     * @param dataDirectory module's scoverage data directory
+     * @param sourceRoot root directory source paths are relative to
+     * @param log logger
+     * @return instrumentation data, stored on the heap
+     * @throws IOException if statements cannot be stored
+     */
+    public static SCoverageStatementStore loadStore( File dataDirectory, File sourceRoot, Log log )
+        throws IOException
+    {
+        try
+        {
+            SCoverageStatementStore cached = readStore( dataDirectory, sourceRoot );
+            if ( cached != null )
+            {
+                return cached;
+            }
+        }
+        catch ( IOException e )
+        {
+            log.debug( String.format( "Cannot read scoverage instrumentation cache [%s]: %s",
+                                      dataDirectory.getAbsolutePath(), e.getMessage() ) );
+        }
+
+        SCoverageStatementStore store = new SCoverageStatementStore( Long.MAX_VALUE, null );
+        store.addModule( load( dataDirectory, sourceRoot, log ) );
+        return store;
+    }
+
+    /**
+     * Reads module's instrumentation data from cache file.
+     *
+     * @param dataDirectory module's scoverage data directory
+     * @param sourceRoot root directory source paths are relative to
+     * @return instrumentation data or {@code null} if there is no valid cache file
+     * @throws IOException if cache file cannot be read or has invalid format
+     */
+    public static Coverage read( File dataDirectory, File sourceRoot )
+        throws IOException
+    {
+        Contents contents = readContents( dataDirectory, sourceRoot );
+        if ( contents == null )
+        {
+            return null;
+        }
+
+        int[][] columns = contents.columns;
+        Coverage coverage = new Coverage();
+        for ( int i = 0; i < contents.statementCount; i++ )
+        {
+            boolean ignored = ( columns[ 9 ][ i ] & 2 ) != 0;
+            Statement statement =
+                new Statement( contents.locations[ columns[ 0 ][ i ] ], columns[ 1 ][ i ], columns[ 2 ][ i ],
+                               columns[ 3 ][ i ], columns[ 4 ][ i ], contents.string( columns[ 5 ][ i ] ),
+                               contents.string( columns[ 6 ][ i ] ), contents.string( columns[ 7 ][ i ] ),
+                               ( columns[ 9 ][ i ] & 1 ) != 0, columns[ 8 ][ i ], ignored,
+                               new scala.collection.mutable.HashSet<String>() );
+            if ( ignored )
+            {
+                coverage.addIgnoredStatement( statement );
+            }
+            else
+            {
+                coverage.add( statement );
+            }
+        }
+        return coverage;
+    }
+
+    /**
+     * Reads module's instrumentation data from cache file into a statement store.
+     *
+     * @param dataDirectory module's scoverage data directory
+     * @param sourceRoot root directory source paths are relative to
+     * @return instrumentation data, stored on the heap, or {@code null} if there is no valid cache file
+     * @throws IOException if cache file cannot be read or has invalid format
+     */
+    public static SCoverageStatementStore readStore( File dataDirectory, File sourceRoot )
+        throws IOException
+    {
+        Contents contents = readContents( dataDirectory, sourceRoot );
+        if ( contents == null )
+        {
+            return null;
+        }
+
+        int[][] columns = contents.columns;
+        SCoverageStatementStore store = new SCoverageStatementStore( Long.MAX_VALUE, null );
+        for ( int i = 0; i < contents.statementCount; i++ )
+        {
+            store.append( contents.locations[ columns[ 0 ][ i ] ], columns[ 1 ][ i ], columns[ 2 ][ i ],
+                          columns[ 3 ][ i ], columns[ 4 ][ i ], contents.string( columns[ 5 ][ i ] ),
+                          contents.string( columns[ 6 ][ i ] ), contents.string( columns[ 7 ][ i ] ),
+                          ( columns[ 9 ][ i ] & 1 ) != 0, columns[ 8 ][ i ], ( columns[ 9 ][ i ] & 2 ) != 0 );
+        }
+        return store;
+    }
+
+    private static Contents readContents( File dataDirectory, File sourceRoot )
+        throws IOException
+    {
+        File coverageFile = Serializer.coverageFile( dataDirectory );
+        File cacheFile = new File( dataDirectory, CACHE_FILE_NAME );
+        if ( !cacheFile.isFile() || !coverageFile.isFile() )
+        {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap( Files.readAllBytes( cacheFile.toPath() ) );
+        try
+        {
+            if ( buffer.getInt() != MAGIC || buffer.getInt() != VERSION )
+            {
+                return null;
+            }
+            if ( buffer.getLong() != coverageFile.length() || buffer.getLong() != coverageFile.lastModified() )
+            {
+                return null;
+            }
+
+            String[] strings = new String[ buffer.getInt() ];
+            for ( int i = 0; i < strings.length; i++ )
+            {
+                byte[] bytes = new byte[ buffer.getInt() ];
+                buffer.get( bytes );
+                strings[ i ] = new String( bytes, StandardCharsets.UTF_8 );
+            }
+
+            String canonicalSourceRoot = sourceRoot.getCanonicalPath();
+            Map<Integer, String> sourcePaths = new HashMap<Integer, String>();
+            Map<Integer, ClassType> classTypes = new HashMap<Integer, ClassType>();
+            Location[] locations = new Location[ buffer.getInt() ];
+            for ( int i = 0; i < locations.length; i++ )
+            {
+                String packageName = string( strings, buffer.getInt() );
+                String className = string( strings, buffer.getInt() );
+                String fullClassName = string( strings, buffer.getInt() );
+                int classTypeIndex = buffer.getInt();
+                String method = string( strings, buffer.getInt() );
+                int sourcePathIndex = buffer.getInt();
+
+                ClassType classType = classTypeIndex == NULL_INDEX ? null
+                    : classTypes.computeIfAbsent( classTypeIndex, k -> ClassType$.MODULE$.fromString( strings[ k ] ) );
+                String sourcePath = sourcePathIndex == NULL_INDEX ? null : sourcePaths.get( sourcePathIndex );
+                if ( sourcePath == null && sourcePathIndex != NULL_INDEX )
+                {
+                    sourcePath = resolve( canonicalSourceRoot, strings[ sourcePathIndex ] );
+                    sourcePaths.put( sourcePathIndex, sourcePath );
+                }
+                locations[ i ] = new Location( packageName, className, fullClassName, classType, method, sourcePath );
+            }
+
+            int statementCount = buffer.getInt();
+            int[][] columns = new int[ 10 ][];
+            for ( int c = 0; c < columns.length; c++ )
+            {
+                columns[ c ] = column( buffer, statementCount );
+            }
+            return new Contents( strings, locations, statementCount, columns );
+        }
+        catch ( RuntimeException e )
+        {
+            throw new IOException( String.format( "Invalid scoverage instrumentation cache file [%s]",
+                                                  cacheFile.getAbsolutePath() ), e );
+        }
+    }
+
+    /**
+     * Writes module's instrumentation data to cache file, valid for current instrumentation data file.
+     *
+     * @param coverage instrumentation data deserialized from module's instrumentation data file
+     * @param dataDirectory module's scoverage data directory
+     * @param sourceRoot root directory source paths are relative to
+     * @throws IOException if cache file cannot be written
+     */
+    public static void write( Coverage coverage, File dataDirectory, File sourceRoot )
+        throws IOException
+    {
+        File coverageFile = Serializer.coverageFile( dataDirectory );
+        Path canonicalSourceRoot = sourceRoot.getCanonicalFile().toPath();
+
+        List<Statement> statements = new ArrayList<Statement>();
+        addAll( statements, coverage.statements() );
+        addAll( statements, coverage.ignoredStatements() );
+
+        Dictionary strings = new Dictionary();
+        Map<List<Integer>, Integer> locationIndexes = new HashMap<List<Integer>, Integer>();
+        List<List<Integer>> locations = new ArrayList<List<Integer>>();
+        Map<String, Integer> sourcePathIndexes = new HashMap<String, Integer>();
+
+        int n = statements.size();
+        int[][] columns = new int[ 10 ][ n ];
+        for ( int i = 0; i < n; i++ )
+        {
+            Statement statement = statements.get( i );
+            Location location = statement.location();
+            String sourcePath = location.sourcePath();
+            Integer sourcePathIndex = sourcePath == null ? Integer.valueOf( NULL_INDEX )
+                : sourcePathIndexes.computeIfAbsent( sourcePath, p -> strings.index( relativize( canonicalSourceRoot, p ) ) );
+            List<Integer> locationKey =
+                Arrays.asList( strings.index( location.packageName() ), strings.index( location.className() ),
+                               strings.index( location.fullClassName() ),
+                               strings.index( location.classType() == null ? null : location.classType().toString() ),
+                               strings.index( location.method() ), sourcePathIndex );
+            Integer locationIndex = locationIndexes.get( locationKey );
+            if ( locationIndex == null )
+            {
+                locationIndex = locations.size();
+                locationIndexes.put( locationKey, locationIndex );
+                locations.add( locationKey );
+            }
+
+            columns[ 0 ][ i ] = locationIndex;
+            columns[ 1 ][ i ] = statement.id();
+            columns[ 2 ][ i ] = statement.start();
+            columns[ 3 ][ i ] = statement.end();
+            columns[ 4 ][ i ] = statement.line();
+            columns[ 5 ][ i ] = strings.index( statement.desc() );
+            columns[ 6 ][ i ] = strings.index( statement.symbolName() );
+            columns[ 7 ][ i ] = strings.index( statement.treeName() );
+            columns[ 8 ][ i ] = statement.count();
+            columns[ 9 ][ i ] = ( statement.branch() ? 1 : 0 ) | ( statement.ignored() ? 2 : 0 );
+        }
+
+        File cacheFile = new File( dataDirectory, CACHE_FILE_NAME );
+        // Unique temporary file, concurrent builds using the same data directory do not write into the same file
+        Path tmpCacheFile = Files.createTempFile( dataDirectory.toPath(), CACHE_FILE_NAME, ".tmp" );
+        try
+        {
+            try ( DataOutputStream out =
+                new DataOutputStream( new BufferedOutputStream( Files.newOutputStream( tmpCacheFile ) ) ) )
+            {
+                out.writeInt( MAGIC );
+                out.writeInt( VERSION );
+                out.writeLong( coverageFile.length() );
+                out.writeLong( coverageFile.lastModified() );
+
+                out.writeInt( strings.values.size() );
+                for ( String value : strings.values )
+                {
+                    byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+                    out.writeInt( bytes.length );
+                    out.write( bytes );
+                }
+
+                out.writeInt( locations.size() );
+                for ( List<Integer> location : locations )
+                {
+                    for ( int index : location )
+                    {
+                        out.writeInt( index );
+                    }
+                }
+
+                out.writeInt( n );
+                for ( int[] column : columns )
+                {
+                    for ( int value : column )
+                    {
+                        out.writeInt( value );
+                    }
+                }
+            }
+            Files.move( tmpCacheFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        }
+        finally
+        {
+            Files.deleteIfExists( tmpCacheFile );
+        }
+    }
+
+    private static void addAll( List<Statement> list, scala.collection.Iterable<Statement> statements )
+    {
+        scala.collection.Iterator<Statement> it = statements.iterator();
+        while ( it.hasNext() )
+        {
+            list.add( it.next() );
+        }
+    }
+
+    private static int[] column( ByteBuffer buffer, int size )
+    {
+        int[] column = new int[ size ];
+        buffer.asIntBuffer().get( column );
+        buffer.position( buffer.position() + size * Integer.BYTES );
+        return column;
+    }
+
+    private static String string( String[] strings, int index )
+    {
+        return index == NULL_INDEX ? null : strings[ index ];
+    }
+
+    private static String relativize( Path sourceRoot, String sourcePath )
+    {
+        try
+        {
+            return sourceRoot.relativize( new File( sourcePath ).toPath() ).toString();
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // different file system roots, absolute path is stored
+            return sourcePath;
+        }
+    }
+
+    private static String resolve( String sourceRoot, String sourcePath )
+        throws IOException
+    {
+        File file = new File( sourcePath );
+        return file.isAbsolute() ? sourcePath : new File( sourceRoot, sourcePath ).getCanonicalPath();
+    }
+
+    /**
+     * Decoded cache file: string dictionary, location table and statement columns
+     * (location, id, start, end, line, description, symbol name, tree name, count, flags).
+     */
+    private static final class Contents
+    {
+        private final String[] strings;
+
+        private final Location[] locations;
+
+        private final int statementCount;
+
+        private final int[][] columns;
+
+        Contents( String[] strings, Location[] locations, int statementCount, int[][] columns )
+        {
+            this.strings = strings;
+            this.locations = locations;
+            this.statementCount = statementCount;
+            this.columns = columns;
+        }
+
+        String string( int index )
+        {
+            return SCoverageInstrumentationCache.string( strings, index );
+        }
+    }
+
+    private static final class Dictionary
+    {
+        private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+        private final List<String> values = new ArrayList<String>();
+
+        int index( String value )
+        {
+            if ( value == null )
+            {
+                return NULL_INDEX;
+            }
+            Integer index = indexes.get( value );
+            if ( index == null )
+            {
+                index = values.size();
+                indexes.put( value, index );
+                values.add( value );
+            }
+            return index;
+        }
+    }
+}
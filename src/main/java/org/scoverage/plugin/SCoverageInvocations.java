@@ -0,0 +1,414 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Statement;
+
+/**
+ * Set of measured statement invocations, (statement id, test name) pairs.
+ * <br>
+ * <br>
+ * Statement ids invoked without test name are stored in a dense bit set,
+ * tests are stored only for statements invoked by named tests. Test names are stored once
+ * in a dictionary, every such statement keeps a {@link SCoverageTestBitmap} of test ids,
+ * in a hash table keyed by primitive statement ids.
+ * Invocation count of a statement is the number of distinct pairs with its id,
+ * the same as when measurements are applied with {@link Coverage#apply(scala.collection.Iterable)}.
+ * <br>
+ * <br>
+ * Invocations can be stored in binary format: a bit set over statement ids
+ * and a test name dictionary with (statement id, test index) pairs.
+ * <br>
+ * <br>
+ * Invocations can be loaded without test names, then every invocation is stored in the bit set only,
+ * which is enough to tell which statements were invoked, but not how many times.
+ * Not thread-safe.
+ */
+public final class SCoverageInvocations
+{
+    private static final int BINARY_MAGIC = 0x53434F56; // "SCOV"
+
+    private static final int BINARY_VERSION = 1;
+
+    private final BitSet invoked = new BitSet();
+
+    private final SCoverageTestBitmaps tests = new SCoverageTestBitmaps();
+
+    private final List<String> testNames = new ArrayList<String>();
+
+    private final Map<String, Integer> testIds = new HashMap<String, Integer>();
+
+    private final boolean withTests;
+
+    /**
+     * Creates empty invocations set storing test names.
+     */
+    public SCoverageInvocations()
+    {
+        this( true );
+    }
+
+    /**
+     * Creates empty invocations set.
+     *
+     * @param withTests store test names; if {@code false} test names are ignored and every invocation
+     *                  is stored as invocation without test name
+     */
+    public SCoverageInvocations( boolean withTests )
+    {
+        this.withTests = withTests;
+    }
+
+    /**
+     * Adds statement invocation.
+     *
+     * @param id statement id
+     * @param test test name, empty if unknown
+     */
+    public void add( int id, String test )
+    {
+        if ( !withTests || test.isEmpty() )
+        {
+            invoked.set( id );
+        }
+        else
+        {
+            tests.getOrAdd( id ).add( testId( test ) );
+        }
+    }
+
+    /**
+     * Adds all invocations from other set.
+     *
+     * @param other invocations to add
+     */
+    public void addAll( SCoverageInvocations other )
+    {
+        invoked.or( other.invoked );
+        int[] otherTestIds = new int[ other.testNames.size() ];
+        for ( int i = 0; i < otherTestIds.length; i++ )
+        {
+            otherTestIds[ i ] = testId( other.testNames.get( i ) );
+        }
+        other.tests.forEach( ( otherTests, id ) -> {
+            SCoverageTestBitmap statementTests = tests.getOrAdd( id );
+            otherTests.forEach( testId -> statementTests.add( otherTestIds[ testId ] ) );
+        } );
+    }
+
+    /**
+     * Returns ids of invoked statements.
+     * If test names are stored, only statements invoked without test name are included.
+     *
+     * @return bit set of invoked statement ids, not a copy
+     */
+    public BitSet invokedIds()
+    {
+        return invoked;
+    }
+
+    /**
+     * Checks if there are no invocations.
+     *
+     * @return true if no statement was invoked
+     */
+    public boolean isEmpty()
+    {
+        return invoked.isEmpty() && tests.isEmpty();
+    }
+
+    /**
+     * Applies invocations to statements of the coverage.
+     * Gives the same result as {@link Coverage#apply(scala.collection.Iterable)} called with all invocation pairs.
+     *
+     * @param coverage coverage to apply invocations to
+     */
+    public void applyTo( Coverage coverage )
+    {
+        applyTo( coverage, true );
+    }
+
+    /**
+     * Applies invocations to statements of the coverage, optionally without test names.
+     * Without test names, statements' invocation counts are the same, but their test sets stay empty.
+     *
+     * @param coverage coverage to apply invocations to
+     * @param withTestNames add test names to statements' test sets
+     */
+    public void applyTo( Coverage coverage, boolean withTestNames )
+    {
+        scala.collection.Iterator<Statement> it = coverage.statements().iterator();
+        while ( it.hasNext() )
+        {
+            Statement statement = it.next();
+            int id = statement.id();
+            if ( invoked.get( id ) )
+            {
+                statement.invoked( "" );
+            }
+            if ( !tests.isEmpty() )
+            {
+                SCoverageTestBitmap statementTests = tests.get( id );
+                if ( statementTests != null )
+                {
+                    statementTests.forEach(
+                        testId -> statement.invoked( withTestNames ? testNames.get( testId ) : "" ) );
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads invocations from text measurement file.
+     *
+     * @param file measurement file
+     * @param charset measurement file encoding
+     * @throws IOException if file cannot be read
+     */
+    public void readText( File file, Charset charset )
+        throws IOException
+    {
+        try ( BufferedReader reader = Files.newBufferedReader( file.toPath(), charset ) )
+        {
+            String line = reader.readLine();
+            while ( line != null )
+            {
+                if ( !line.isEmpty() )
+                {
+                    int separator = line.indexOf( ' ' );
+                    int id = Integer.parseInt( line, 0, separator < 0 ? line.length() : separator, 10 );
+                    if ( separator < 0 || !withTests )
+                    {
+                        invoked.set( id );
+                    }
+                    else
+                    {
+                        add( id, line.substring( separator + 1 ) );
+                    }
+                }
+                line = reader.readLine();
+            }
+        }
+    }
+
+    /**
+     * Writes invocations in text measurement file format, sorted by statement id and test name.
+     *
+     * @param file output file
+     * @param charset output file encoding
+     * @throws IOException if file cannot be written
+     */
+    public void writeText( File file, Charset charset )
+        throws IOException
+    {
+        int[] testedIds = tests.sortedIds();
+        try ( BufferedWriter writer = Files.newBufferedWriter( file.toPath(), charset ) )
+        {
+            int nextInvoked = invoked.nextSetBit( 0 );
+            int nextTested = 0;
+            while ( nextInvoked >= 0 || nextTested < testedIds.length )
+            {
+                int id = nextTested < testedIds.length && ( nextInvoked < 0 || testedIds[ nextTested ] < nextInvoked )
+                    ? testedIds[ nextTested ] : nextInvoked;
+                String idString = Integer.toString( id );
+                if ( id == nextInvoked )
+                {
+                    writer.write( idString );
+                    writer.newLine();
+                    nextInvoked = invoked.nextSetBit( id + 1 );
+                }
+                if ( nextTested < testedIds.length && testedIds[ nextTested ] == id )
+                {
+                    for ( String test : sortedTestNames( tests.get( id ) ) )
+                    {
+                        writer.write( idString );
+                        writer.write( ' ' );
+                        writer.write( test );
+                        writer.newLine();
+                    }
+                    nextTested++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads invocations from binary measurement file.
+     * File content is read into heap arrays with one bulk read and the file is closed,
+     * so it can be deleted or replaced right after reading on all platforms.
+     *
+     * @param file binary measurement file
+     * @throws IOException if file cannot be read or has invalid format
+     */
+    public void readBinary( File file )
+        throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap( Files.readAllBytes( file.toPath() ) );
+
+        try
+        {
+            if ( buffer.getInt() != BINARY_MAGIC || buffer.getInt() != BINARY_VERSION )
+            {
+                throw new IOException( String.format( "Unsupported binary measurements file format [%s]",
+                                                      file.getAbsolutePath() ) );
+            }
+
+            int wordCount = buffer.getInt();
+            long[] words = new long[ wordCount ];
+            buffer.asLongBuffer().get( words );
+            buffer.position( buffer.position() + wordCount * Long.BYTES );
+            invoked.or( BitSet.valueOf( words ) );
+
+            int testCount = buffer.getInt();
+            int[] fileTestIds = new int[ testCount ];
+            for ( int i = 0; i < testCount; i++ )
+            {
+                int length = buffer.getInt();
+                if ( withTests )
+                {
+                    byte[] bytes = new byte[ length ];
+                    buffer.get( bytes );
+                    fileTestIds[ i ] = testId( new String( bytes, StandardCharsets.UTF_8 ) );
+                }
+                else
+                {
+                    buffer.position( buffer.position() + length );
+                }
+            }
+
+            int pairCount = buffer.getInt();
+            for ( int i = 0; i < pairCount; i++ )
+            {
+                int id = buffer.getInt();
+                int testIndex = buffer.getInt();
+                if ( withTests )
+                {
+                    tests.getOrAdd( id ).add( fileTestIds[ testIndex ] );
+                }
+                else
+                {
+                    invoked.set( id );
+                }
+            }
+        }
+        catch ( RuntimeException e )
+        {
+            throw new IOException( String.format( "Invalid binary measurements file [%s]", file.getAbsolutePath() ), e );
+        }
+    }
+
+    /**
+     * Writes invocations in binary format.
+     *
+     * @param file output file
+     * @throws IOException if file cannot be written
+     */
+    public void writeBinary( File file )
+        throws IOException
+    {
+        // Test names are written sorted, test index in the file is the position in sorted names
+        List<String> sortedNames = new ArrayList<String>( testNames );
+        sortedNames.sort( null );
+        int[] testIndexes = new int[ testNames.size() ];
+        for ( int i = 0; i < sortedNames.size(); i++ )
+        {
+            testIndexes[ testIds.get( sortedNames.get( i ) ) ] = i;
+        }
+        int[] testedIds = tests.sortedIds();
+
+        try ( DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file ) ) ) )
+        {
+            out.writeInt( BINARY_MAGIC );
+            out.writeInt( BINARY_VERSION );
+
+            long[] words = invoked.toLongArray();
+            out.writeInt( words.length );
+            for ( long word : words )
+            {
+                out.writeLong( word );
+            }
+
+            out.writeInt( sortedNames.size() );
+            for ( String testName : sortedNames )
+            {
+                byte[] bytes = testName.getBytes( StandardCharsets.UTF_8 );
+                out.writeInt( bytes.length );
+                out.write( bytes );
+            }
+
+            int pairCount = 0;
+            for ( int id : testedIds )
+            {
+                pairCount += tests.get( id ).cardinality();
+            }
+            out.writeInt( pairCount );
+            for ( int id : testedIds )
+            {
+                SCoverageTestBitmap statementTests = tests.get( id );
+                int[] indexes = new int[ statementTests.cardinality() ];
+                int[] n = new int[ 1 ];
+                statementTests.forEach( testId -> indexes[ n[ 0 ]++ ] = testIndexes[ testId ] );
+                Arrays.sort( indexes );
+                for ( int index : indexes )
+                {
+                    out.writeInt( id );
+                    out.writeInt( index );
+                }
+            }
+        }
+    }
+
+    private int testId( String test )
+    {
+        Integer testId = testIds.get( test );
+        if ( testId == null )
+        {
+            testId = testNames.size();
+            testIds.put( test, testId );
+            testNames.add( test );
+        }
+        return testId;
+    }
+
+    private List<String> sortedTestNames( SCoverageTestBitmap statementTests )
+    {
+        List<String> names = new ArrayList<String>( statementTests.cardinality() );
+        statementTests.forEach( testId -> names.add( testNames.get( testId ) ) );
+        names.sort( null );
+        return names;
+    }
+}
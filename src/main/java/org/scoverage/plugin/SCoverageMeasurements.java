@@ -0,0 +1,435 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import scoverage.domain.Constants;
+import scoverage.reporter.IOUtils;
+import scoverage.serialize.Serializer;
+
+/**
+ * Utilities for scoverage measurement files.
+ * <br>
+ * <br>
+ * Text measurement files are written by instrumented code at runtime, one file per thread,
+ * each line contains invoked statement id, optionally followed by a space and test name.
+ * Measurements can also be compacted into one text file or one binary file,
+ * see {@link SCoverageInvocations}.
+ */
+public final class SCoverageMeasurements
+{
+    /**
+     * Name of the text measurement file containing compacted measurements.
+     * It starts with measurement files prefix, so it is found by {@link IOUtils#findMeasurementFiles(File)}
+     * together with measurement files written after compaction.
+     */
+    public static final String COMPACTED_FILE_NAME = Constants.MeasurementsPrefix() + "compacted";
+
+    /**
+     * Name of the binary measurement file containing compacted measurements.
+     * It does not start with measurement files prefix, because it cannot be read
+     * by {@link IOUtils#invoked(scala.collection.immutable.Seq, String)}.
+     */
+    public static final String BINARY_FILE_NAME = "scoverage.invocations.bin";
+
+    private static final String COMPACTING_FILE_NAME = ".scoverage.compacting.tmp";
+
+    private SCoverageMeasurements()
+    {
+    }
+
+    /**
+     * Finds all measurement files, text and binary, in data directory.
+     *
+     * @param dataDirectory scoverage data directory
+     * @return measurement files
+     */
+    public static File[] findMeasurementFiles( File dataDirectory )
+    {
+        File[] textFiles = IOUtils.findMeasurementFiles( dataDirectory );
+        File binaryFile = new File( dataDirectory, BINARY_FILE_NAME );
+        if ( !binaryFile.isFile() )
+        {
+            return textFiles;
+        }
+        File[] files = Arrays.copyOf( textFiles, textFiles.length + 1 );
+        files[ textFiles.length ] = binaryFile;
+        return files;
+    }
+
+    /**
+     * Reads all measurements from data directory.
+     *
+     * @param dataDirectory scoverage data directory
+     * @param encoding text measurement files encoding, platform default if {@code null}
+     * @return measured invocations
+     * @throws IOException if measurement files cannot be read
+     */
+    public static SCoverageInvocations load( File dataDirectory, String encoding )
+        throws IOException
+    {
+        return load( dataDirectory, encoding, true, 1 );
+    }
+
+    /**
+     * Reads all measurements from data directory, measurement files concurrently.
+     *
+     * @param dataDirectory scoverage data directory
+     * @param encoding text measurement files encoding, platform default if {@code null}
+     * @param threads maximum number of reading threads
+     * @return measured invocations
+     * @throws IOException if measurement files cannot be read
+     */
+    public static SCoverageInvocations load( File dataDirectory, String encoding, int threads )
+        throws IOException
+    {
+        return load( dataDirectory, encoding, true, threads );
+    }
+
+    /**
+     * Reads all measurements from data directory, measurement files concurrently on given executor.
+     * <br>
+     * <br>
+     * Must not be called from a task running on the same executor, the caller waits for reading tasks.
+     *
+     * @param dataDirectory scoverage data directory
+     * @param encoding text measurement files encoding, platform default if {@code null}
+     * @param executor executor reading measurement files, {@code null} to read them on the calling thread
+     * @return measured invocations
+     * @throws IOException if measurement files cannot be read
+     */
+    public static SCoverageInvocations load( File dataDirectory, String encoding, ExecutorService executor )
+        throws IOException
+    {
+        return load( dataDirectory, encoding, true, executor );
+    }
+
+    /**
+     * Reads ids of invoked statements from data directory, without test names.
+     *
+     * @param dataDirectory scoverage data directory
+     * @param encoding text measurement files encoding, platform default if {@code null}
+     * @return measured invocations without test names
+     * @throws IOException if measurement files cannot be read
+     */
+    public static SCoverageInvocations loadInvokedIds( File dataDirectory, String encoding )
+        throws IOException
+    {
+        return load( dataDirectory, encoding, false, 1 );
+    }
+
+    /**
+     * Reads ids of invoked statements from data directory, without test names, measurement files concurrently.
+     *
+     * @param dataDirectory scoverage data directory
+     * @param encoding text measurement files encoding, platform default if {@code null}
+     * @param threads maximum number of reading threads
+     * @return measured invocations without test names
+     * @throws IOException if measurement files cannot be read
+     */
+    public static SCoverageInvocations loadInvokedIds( File dataDirectory, String encoding, int threads )
+        throws IOException
+    {
+        return load( dataDirectory, encoding, false, threads );
+    }
+
+    /**
+     * Merges all measurement files in data directory into one compacted measurement file
+     * with deduplicated measurements sorted by statement id, and removes merged files.
+     * <br>
+     * <br>
+     * Measurements are read as a set of (statement id, test name) pairs, so compaction does not change
+     * measured coverage. Compacted file is moved in place before merged files are deleted,
+     * so interrupted compaction can only leave duplicated measurements behind, never lose them.
+     *
+     * @param dataDirectory scoverage data directory
+     * @param encoding text measurement files encoding, platform default if {@code null}
+     * @param binary write compacted measurements in binary format instead of text
+     * @return number of merged measurement files
+     * @throws IOException if measurement files cannot be read, written or deleted
+     */
+    public static int compact( File dataDirectory, String encoding, boolean binary )
+        throws IOException
+    {
+        File[] measurementFiles = findMeasurementFiles( dataDirectory );
+        File compactedFile = new File( dataDirectory, binary ? BINARY_FILE_NAME : COMPACTED_FILE_NAME );
+        if ( measurementFiles.length == 0
+            || measurementFiles.length == 1 && measurementFiles[ 0 ].equals( compactedFile ) )
+        {
+            return 0;
+        }
+
+        SCoverageInvocations invocations = load( dataDirectory, encoding, true, Runtime.getRuntime().availableProcessors() );
+
+        File compactingFile = new File( dataDirectory, COMPACTING_FILE_NAME );
+        if ( binary )
+        {
+            invocations.writeBinary( compactingFile );
+        }
+        else
+        {
+            invocations.writeText( compactingFile, charset( encoding ) );
+        }
+        Files.move( compactingFile.toPath(), compactedFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+
+        for ( File measurementFile : measurementFiles )
+        {
+            if ( !measurementFile.equals( compactedFile ) )
+            {
+                Files.delete( measurementFile.toPath() );
+            }
+        }
+        return measurementFiles.length;
+    }
+
+    /**
+     * Merges measurements of data directories of one module, copied from test runs on different machines
+     * (shards), into target data directory.
+     * <br>
+     * <br>
+     * Instrumentation data files of all shards must be identical, otherwise statement ids of their measurements
+     * would not match. Instrumentation data file is copied into target directory. If target directory already
+     * contains instrumentation data, it must be identical too and its measurements are merged as well.
+     * Shards are read concurrently and their measurements are written into one compacted measurement file,
+     * replacing all measurement files of target directory.
+     *
+     * @param shardDirectories shards' scoverage data directories
+     * @param targetDirectory target scoverage data directory
+     * @param encoding text measurement files encoding, platform default if {@code null}
+     * @param binary write merged measurements in binary format instead of text
+     * @param threads maximum number of reading threads
+     * @throws IOException if instrumentation data differ or data files cannot be read or written
+     */
+    public static void merge( List<File> shardDirectories, File targetDirectory, String encoding, boolean binary,
+                              int threads )
+        throws IOException
+    {
+        if ( shardDirectories.isEmpty() )
+        {
+            throw new IllegalArgumentException( "No shard directories to merge" );
+        }
+        List<File> inputs = new ArrayList<File>( shardDirectories );
+        File targetCoverageFile = Serializer.coverageFile( targetDirectory );
+        if ( targetCoverageFile.isFile() )
+        {
+            inputs.add( targetDirectory );
+        }
+        File coverageFile = Serializer.coverageFile( inputs.get( 0 ) );
+        for ( File input : inputs )
+        {
+            File inputCoverageFile = Serializer.coverageFile( input );
+            if ( Files.mismatch( coverageFile.toPath(), inputCoverageFile.toPath() ) != -1 )
+            {
+                throw new IOException( String.format( "Instrumentation data [%s] differs from [%s]",
+                                                      inputCoverageFile.getAbsolutePath(),
+                                                      coverageFile.getAbsolutePath() ) );
+            }
+        }
+
+        Charset charset = charset( encoding );
+        ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, Math.min( threads, inputs.size() ) ) );
+        SCoverageInvocations invocations;
+        try
+        {
+            invocations = union( inputs.toArray( new File[ 0 ] ), executor, input -> {
+                SCoverageInvocations shardInvocations = new SCoverageInvocations( true );
+                for ( File measurementFile : findMeasurementFiles( input ) )
+                {
+                    read( shardInvocations, measurementFile, charset );
+                }
+                return shardInvocations;
+            } );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        Files.createDirectories( targetDirectory.toPath() );
+        if ( !targetCoverageFile.isFile() )
+        {
+            Files.copy( coverageFile.toPath(), targetCoverageFile.toPath() );
+        }
+        File[] measurementFiles = findMeasurementFiles( targetDirectory );
+        File mergedFile = new File( targetDirectory, binary ? BINARY_FILE_NAME : COMPACTED_FILE_NAME );
+        File mergingFile = new File( targetDirectory, COMPACTING_FILE_NAME );
+        if ( binary )
+        {
+            invocations.writeBinary( mergingFile );
+        }
+        else
+        {
+            invocations.writeText( mergingFile, charset );
+        }
+        Files.move( mergingFile.toPath(), mergedFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        for ( File measurementFile : measurementFiles )
+        {
+            if ( !measurementFile.equals( mergedFile ) )
+            {
+                Files.delete( measurementFile.toPath() );
+            }
+        }
+    }
+
+    /**
+     * Reads measurement files. With more threads, measurement files are read on a thread pool
+     * created for this call, see {@link #union(File[], ExecutorService, Reader)}.
+     */
+    private static SCoverageInvocations load( File dataDirectory, String encoding, boolean withTests,
+                                              int threads )
+        throws IOException
+    {
+        int fileCount = findMeasurementFiles( dataDirectory ).length;
+        if ( threads <= 1 || fileCount <= 1 )
+        {
+            return load( dataDirectory, encoding, withTests, null );
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( Math.min( threads, fileCount ) );
+        try
+        {
+            return load( dataDirectory, encoding, withTests, executor );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads measurement files, on the calling thread if executor is {@code null},
+     * otherwise concurrently on the executor.
+     */
+    private static SCoverageInvocations load( File dataDirectory, String encoding, boolean withTests,
+                                              ExecutorService executor )
+        throws IOException
+    {
+        File[] measurementFiles = findMeasurementFiles( dataDirectory );
+        Charset charset = charset( encoding );
+        if ( executor == null || measurementFiles.length <= 1 )
+        {
+            SCoverageInvocations invocations = new SCoverageInvocations( withTests );
+            for ( File measurementFile : measurementFiles )
+            {
+                read( invocations, measurementFile, charset );
+            }
+            return invocations;
+        }
+
+        return union( measurementFiles, executor, measurementFile -> {
+            SCoverageInvocations invocations = new SCoverageInvocations( withTests );
+            read( invocations, measurementFile, charset );
+            return invocations;
+        } );
+    }
+
+    /**
+     * Reads every input into its own invocations set on the executor
+     * and merges the sets on the calling thread as they are read.
+     */
+    private static SCoverageInvocations union( File[] inputs, ExecutorService executor, Reader reader )
+        throws IOException
+    {
+        CompletionService<SCoverageInvocations> completionService =
+            new ExecutorCompletionService<SCoverageInvocations>( executor );
+        List<Future<SCoverageInvocations>> futures = new ArrayList<Future<SCoverageInvocations>>( inputs.length );
+        try
+        {
+            for ( File input : inputs )
+            {
+                futures.add( completionService.submit( () -> reader.read( input ) ) );
+            }
+            SCoverageInvocations union = completionService.take().get();
+            for ( int i = 1; i < inputs.length; i++ )
+            {
+                union.addAll( completionService.take().get() );
+            }
+            return union;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while reading measurement files", e );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            if ( cause instanceof IOException ioException )
+            {
+                throw ioException;
+            }
+            if ( cause instanceof RuntimeException runtimeException )
+            {
+                throw runtimeException;
+            }
+            if ( cause instanceof Error error )
+            {
+                throw error;
+            }
+            throw new IOException( cause );
+        }
+        finally
+        {
+            for ( Future<SCoverageInvocations> future : futures )
+            {
+                future.cancel( true );
+            }
+        }
+    }
+
+    private static void read( SCoverageInvocations invocations, File measurementFile, Charset charset )
+        throws IOException
+    {
+        if ( measurementFile.getName().equals( BINARY_FILE_NAME ) )
+        {
+            invocations.readBinary( measurementFile );
+        }
+        else
+        {
+            invocations.readText( measurementFile, charset );
+        }
+    }
+
+    /**
+     * Reads measurements of one input.
+     */
+    private interface Reader
+    {
+        SCoverageInvocations read( File input )
+            throws IOException;
+    }
+
+    private static Charset charset( String encoding )
+    {
+        return encoding != null ? Charset.forName( encoding ) : Charset.defaultCharset();
+    }
+}
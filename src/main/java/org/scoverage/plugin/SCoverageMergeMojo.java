@@ -0,0 +1,203 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+import scoverage.serialize.Serializer;
+
+/**
+ * Merges scoverage data directories of a module, copied from test runs split across many machines (shards),
+ * into module's data directory.
+ * <br>
+ * <br>
+ * Instrumentation data of all shards must be identical (all shards must be built from the same sources
+ * with the same configuration), measurements of all shards are merged into one compacted measurement file.
+ * Merged data directory can be used by {@code report-only} and {@code check-only} goals.
+ * <br>
+ * <br>
+ * Example:
+ * <br>
+ * {@code mvn scoverage:merge scoverage:report-only -Dscoverage.shardDirectories=shards/1/scoverage-data,shards/2/scoverage-data}
+ * <br>
+ *
+ * @since 2.1.6
+ */
+@Mojo( name = "merge", threadSafe = true )
+public class SCoverageMergeMojo
+    extends AbstractMojo
+{
+    /**
+     * Allows SCoverage to be skipped.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.skip", defaultValue = "false" )
+    private boolean skip;
+
+    /**
+     * Shards' copies of module's scoverage data directory.
+     * <br>
+     * <br>
+     * Relative paths are resolved against module's base directory, so the same relative paths
+     * can be used for all modules. Missing directories are ignored.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.shardDirectories" )
+    private List<String> shardDirectories;
+
+    /**
+     * Format of merged measurements file, {@code text} or {@code binary}.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.measurementsFormat", defaultValue = "text" )
+    private String measurementsFormat;
+
+    /**
+     * Directory where the merged coverage files should be written.
+     */
+    @Parameter( property = "scoverage.dataDirectory", defaultValue = "${project.build.directory}/scoverage-data", required = true, readonly = true )
+    private File dataDirectory;
+
+    /**
+     * The file encoding to use when reading and writing measurement files.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "encoding", defaultValue = "${project.build.sourceEncoding}" )
+    private String encoding;
+
+    /**
+     * Maven project to interact with.
+     */
+    @Parameter( defaultValue = "${project}", readonly = true, required = true )
+    private MavenProject project;
+
+    /**
+     * Merges shards' data directories into module's data directory.
+     *
+     * @throws MojoExecutionException if shards cannot be merged
+     */
+    @Override
+    public void execute()
+        throws MojoExecutionException
+    {
+        if ( "pom".equals( project.getPackaging() ) )
+        {
+            return;
+        }
+
+        if ( skip )
+        {
+            getLog().info( "Skipping SCoverage execution" );
+            return;
+        }
+
+        boolean binary = "binary".equals( measurementsFormat );
+        if ( !binary && !"text".equals( measurementsFormat ) )
+        {
+            throw new MojoExecutionException( String.format( "Unsupported measurements format \"%s\", use \"text\" or \"binary\"",
+                                                             measurementsFormat ) );
+        }
+
+        long ts = System.currentTimeMillis();
+
+        List<File> shards = new ArrayList<File>();
+        if ( shardDirectories != null )
+        {
+            for ( String shardDirectory : shardDirectories )
+            {
+                File shard = new File( shardDirectory.trim() );
+                if ( !shard.isAbsolute() )
+                {
+                    shard = new File( project.getBasedir(), shardDirectory.trim() );
+                }
+                if ( Serializer.coverageFile( shard ).isFile() )
+                {
+                    shards.add( shard );
+                }
+                else
+                {
+                    getLog().debug( String.format( "No scoverage data in shard [%s]", shard.getAbsolutePath() ) );
+                }
+            }
+        }
+        if ( shards.isEmpty() )
+        {
+            getLog().info( "No scoverage data found in shard directories, skipping merge" );
+            return;
+        }
+
+        try
+        {
+            SCoverageMeasurements.merge( shards, dataDirectory, encoding, binary,
+                                         Runtime.getRuntime().availableProcessors() );
+            saveSourceRootsToFile();
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "SCoverage data merge failed: " + e.getMessage(), e );
+        }
+        getLog().info( String.format( "Merged scoverage data of %d shards into [%s]", shards.size(),
+                                      dataDirectory.getAbsolutePath() ) );
+
+        long te = System.currentTimeMillis();
+        getLog().debug( String.format( "Mojo execution time: %d ms", te - ts ) );
+    }
+
+    /**
+     * Shards' source roots are paths on the machines running the tests,
+     * merged data refers to module's source roots in this build.
+     */
+    private void saveSourceRootsToFile() throws IOException
+    {
+        List<String> sourceRoots = project.getCompileSourceRoots();
+        if ( !sourceRoots.isEmpty() )
+        {
+            File sourceRootsFile = new File( dataDirectory, "source.roots" );
+            try ( BufferedWriter writer = new BufferedWriter(
+                    new OutputStreamWriter( new FileOutputStream( sourceRootsFile ), StandardCharsets.UTF_8 ) ) )
+            {
+                for ( String sourceRoot : sourceRoots )
+                {
+                    writer.write( sourceRoot );
+                    writer.newLine();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,491 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import scala.Option;
+import scala.jdk.javaapi.CollectionConverters;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+import scoverage.reporter.ScoverageHtmlWriter;
+
+/**
+ * HTML report writer rendering source file pages concurrently.
+ * <br>
+ * <br>
+ * All pages are rendered by {@link ScoverageHtmlWriter}, so they are the same as written
+ * by {@link ScoverageHtmlWriter} alone, whatever the number of threads.
+ * <br>
+ * Index, package list, overview and package pages depend on all statements, so they are rendered
+ * from the full coverage on the calling thread. Source file pages are the expensive part
+ * (source files are read and highlighted), so for this pass every source file is replaced with an empty
+ * file with the same path relative to its source root, and its page is discarded.
+ * <br>
+ * Source file pages depend only on statements of their own source file. Source files are partitioned
+ * into groups of similar statement counts, coverage of every group is built and rendered on a worker thread
+ * into a separate part directory, concurrently with the index pass, and only source file pages
+ * are moved to the output directory. Big reports are split into more groups than threads,
+ * so only statements of groups being rendered are copied at the same time.
+ * Pages of selected source files only can be rendered, to update existing report.
+ * <br>
+ * <br>
+ * If all pages are written and there is only one thread or one source file, or if some source files have ambiguous relative paths
+ * or are not under any source root, or any expected page was not found, whole report is written
+ * by {@link ScoverageHtmlWriter} on the calling thread.
+ */
+public final class SCoverageParallelHtmlWriter
+{
+    private static final String INDEX_PAGE = "index.html";
+
+    private static final int PART_STATEMENTS = 250000;
+
+    private final SCoverageSourceIndex sourceIndex;
+
+    private final File outputDirectory;
+
+    private final ExecutorService executor;
+
+    private final int threads;
+
+    private final BiFunction<List<File>, File, ScoverageHtmlWriter> htmlWriters;
+
+    /**
+     * Creates HTML report writer.
+     * <br>
+     * <br>
+     * Must not be used from a task running on the executor, the writer waits for rendering tasks.
+     *
+     * @param sourceIndex index of coverage source files
+     * @param outputDirectory HTML report output directory
+     * @param encoding source files encoding, platform default if {@code null}
+     * @param executor executor rendering pages, {@code null} to render them on the calling thread
+     * @param threads number of executor threads
+     */
+    public SCoverageParallelHtmlWriter( SCoverageSourceIndex sourceIndex, File outputDirectory, String encoding,
+                                        ExecutorService executor, int threads )
+    {
+        this( sourceIndex, outputDirectory, executor, threads, ( sourceRoots, directory ) -> new ScoverageHtmlWriter(
+            CollectionConverters.asScala( sourceRoots ).toSeq(), directory, Option.<String>apply( encoding ) ) );
+    }
+
+    /**
+     * Creates HTML report writer rendering pages with given writers.
+     *
+     * @param sourceIndex index of coverage source files
+     * @param outputDirectory HTML report output directory
+     * @param executor executor rendering pages, {@code null} to render them on the calling thread
+     * @param threads number of executor threads
+     * @param htmlWriters creates writer of report pages from source roots and output directory
+     */
+    SCoverageParallelHtmlWriter( SCoverageSourceIndex sourceIndex, File outputDirectory, ExecutorService executor,
+                                 int threads, BiFunction<List<File>, File, ScoverageHtmlWriter> htmlWriters )
+    {
+        this.sourceIndex = sourceIndex;
+        this.outputDirectory = outputDirectory;
+        this.executor = executor;
+        this.threads = executor != null ? threads : 1;
+        this.htmlWriters = htmlWriters;
+    }
+
+    /**
+     * Writes HTML report.
+     *
+     * @param coverage measured coverage
+     * @throws IOException if report cannot be written
+     */
+    public void write( Coverage coverage )
+        throws IOException
+    {
+        write( coverage, null );
+    }
+
+    /**
+     * Writes HTML report pages, except source file pages of not selected source files.
+     * Pages of not selected source files already in the output directory are left unchanged.
+     *
+     * @param coverage measured coverage
+     * @param sources source files whose pages are written, {@code null} to write pages of all source files
+     * @throws IOException if report cannot be written
+     */
+    public void write( Coverage coverage, Set<String> sources )
+        throws IOException
+    {
+        SCoverageRollup rollup = coverage instanceof SCoverageStatementStore store
+            ? SCoverageRollup.of( store ) : SCoverageRollup.of( coverage.statements() );
+        Map<String, SCoverageRollup.Metrics> files = rollup.fileMetrics();
+        if ( sources == null && Math.min( threads, files.size() ) <= 1 || !sourceIndex.ambiguousPaths().isEmpty()
+            || !sourceIndex.unresolvedSources().isEmpty() )
+        {
+            newHtmlWriter( sourceIndex.usedSourceRoots(), outputDirectory ).write( coverage );
+            return;
+        }
+
+        Map<String, SCoverageRollup.Metrics> selectedFiles = files;
+        if ( sources != null )
+        {
+            selectedFiles = new HashMap<String, SCoverageRollup.Metrics>( files );
+            selectedFiles.keySet().retainAll( sources );
+        }
+        long selectedStatements = 0;
+        for ( SCoverageRollup.Metrics file : selectedFiles.values() )
+        {
+            selectedStatements += file.getStatementCount();
+        }
+
+        // More parts than threads bound the number of statements of parts being rendered at the same time
+        int parts = (int) Math.min( selectedFiles.size(),
+                                    Math.max( threads, ( selectedStatements + PART_STATEMENTS - 1L )
+                                        / PART_STATEMENTS ) );
+        Map<String, Integer> fileParts = partition( selectedFiles, parts );
+        List<File> partDirectories = new ArrayList<File>( parts );
+        List<Callable<Void>> renderers = new ArrayList<Callable<Void>>( parts );
+        for ( int i = 0; i < parts; i++ )
+        {
+            File partDirectory = workDirectory( "part" + i );
+            SCoverageHtmlManifest.deleteRecursively( partDirectory.toPath() );
+            int part = i;
+            partDirectories.add( partDirectory );
+            renderers.add( () -> {
+                Coverage partCoverage = copy( coverage, source -> {
+                    Integer sourcePart = fileParts.get( source );
+                    return sourcePart != null && sourcePart == part;
+                }, Function.identity() );
+                newHtmlWriter( sourceIndex.usedSourceRoots(), partDirectory ).write( partCoverage );
+                return null;
+            } );
+        }
+        File indexDirectory = workDirectory( "index" );
+        File emptySourceRoot = workDirectory( "sources" );
+
+        try
+        {
+            List<Future<Void>> futures = submitAll( renderers );
+            try
+            {
+                writeIndexPages( coverage, files.keySet(), indexDirectory, emptySourceRoot );
+                runAll( futures );
+            }
+            finally
+            {
+                for ( Future<Void> future : futures )
+                {
+                    future.cancel( true );
+                }
+            }
+
+            Set<String> filePages = filePages( files.keySet() );
+            if ( !new File( indexDirectory, INDEX_PAGE ).isFile()
+                || !containsPages( partDirectories, filePages( selectedFiles.keySet() ) ) )
+            {
+                // Page layout differs from the expected one, render everything on the calling thread
+                newHtmlWriter( sourceIndex.usedSourceRoots(), outputDirectory ).write( coverage );
+                return;
+            }
+
+            Files.createDirectories( outputDirectory.toPath() );
+            movePages( indexDirectory.toPath(), page -> !filePages.contains( page ) );
+            for ( File partDirectory : partDirectories )
+            {
+                movePages( partDirectory.toPath(), filePages::contains );
+            }
+        }
+        finally
+        {
+            for ( File partDirectory : partDirectories )
+            {
+                SCoverageHtmlManifest.deleteRecursively( partDirectory.toPath() );
+            }
+            SCoverageHtmlManifest.deleteRecursively( indexDirectory.toPath() );
+            SCoverageHtmlManifest.deleteRecursively( emptySourceRoot.toPath() );
+        }
+    }
+
+    private File workDirectory( String name )
+    {
+        return new File( outputDirectory.getParentFile(), "." + outputDirectory.getName() + "." + name );
+    }
+
+    private ScoverageHtmlWriter newHtmlWriter( List<File> sourceRoots, File directory )
+    {
+        return htmlWriters.apply( sourceRoots, directory );
+    }
+
+    /**
+     * Renders all pages from the full coverage with source files replaced by empty files
+     * under one source root, with the same relative paths, so page names, links and all numbers
+     * are the same as with the real source files.
+     */
+    private void writeIndexPages( Coverage coverage, Iterable<String> sources, File indexDirectory,
+                                  File emptySourceRoot )
+        throws IOException
+    {
+        SCoverageHtmlManifest.deleteRecursively( indexDirectory.toPath() );
+        SCoverageHtmlManifest.deleteRecursively( emptySourceRoot.toPath() );
+        File sourceRoot = emptySourceRoot.getCanonicalFile();
+        Map<String, String> emptySources = new HashMap<String, String>();
+        for ( String source : sources )
+        {
+            File emptySource = new File( sourceRoot, sourceIndex.relativePath( source ) );
+            Files.createDirectories( emptySource.getParentFile().toPath() );
+            Files.createFile( emptySource.toPath() );
+            emptySources.put( source, emptySource.getPath() );
+        }
+
+        Map<Location, Location> locations = new HashMap<Location, Location>();
+        Coverage indexCoverage = copy( coverage, source -> true, location -> locations.computeIfAbsent(
+            location, l -> new Location( l.packageName(), l.className(), l.fullClassName(), l.classType(), l.method(),
+                                       emptySources.getOrDefault( l.sourcePath(), l.sourcePath() ) ) ) );
+        newHtmlWriter( Collections.singletonList( sourceRoot ), indexDirectory ).write( indexCoverage );
+    }
+
+    /**
+     * Partitions source files into groups of similar statement counts, the biggest source files first,
+     * each to the group with the lowest statement count.
+     */
+    private static Map<String, Integer> partition( Map<String, SCoverageRollup.Metrics> files, int parts )
+    {
+        List<Map.Entry<String, SCoverageRollup.Metrics>> bySize =
+            new ArrayList<Map.Entry<String, SCoverageRollup.Metrics>>( files.entrySet() );
+        bySize.sort( ( a, b ) -> Integer.compare( b.getValue().getStatementCount(),
+                                                  a.getValue().getStatementCount() ) );
+
+        long[] partSizes = new long[ parts ];
+        Map<String, Integer> fileParts = new HashMap<String, Integer>();
+        for ( Map.Entry<String, SCoverageRollup.Metrics> file : bySize )
+        {
+            int part = 0;
+            for ( int i = 1; i < parts; i++ )
+            {
+                if ( partSizes[ i ] < partSizes[ part ] )
+                {
+                    part = i;
+                }
+            }
+            fileParts.put( file.getKey(), part );
+            partSizes[ part ] += file.getValue().getStatementCount();
+        }
+        return fileParts;
+    }
+
+    /**
+     * Copies statements of selected source files, with mapped locations. Statement ids are kept,
+     * so pages are the same in every part. Called on the rendering thread,
+     * so only coverage of parts being rendered is held in memory. Statement objects
+     * of {@link SCoverageStatementStore} are created only for copied statements.
+     */
+    private static Coverage copy( Coverage coverage, Predicate<String> sources,
+                                  Function<Location, Location> locations )
+    {
+        Coverage copy = new Coverage();
+        if ( coverage instanceof SCoverageStatementStore store )
+        {
+            for ( int row = 0; row < store.size(); row++ )
+            {
+                if ( sources.test( store.location( row ).sourcePath() ) )
+                {
+                    Statement statement = store.statement( row );
+                    if ( statement.ignored() )
+                    {
+                        copy.addIgnoredStatement( copy( statement, locations ) );
+                    }
+                    else
+                    {
+                        copy.add( copy( statement, locations ) );
+                    }
+                }
+            }
+            return copy;
+        }
+
+        scala.collection.Iterator<Statement> it = coverage.statements().iterator();
+        while ( it.hasNext() )
+        {
+            Statement statement = it.next();
+            if ( sources.test( statement.source() ) )
+            {
+                copy.add( copy( statement, locations ) );
+            }
+        }
+        it = coverage.ignoredStatements().iterator();
+        while ( it.hasNext() )
+        {
+            Statement statement = it.next();
+            if ( sources.test( statement.source() ) )
+            {
+                copy.addIgnoredStatement( copy( statement, locations ) );
+            }
+        }
+        return copy;
+    }
+
+    private static Statement copy( Statement statement, Function<Location, Location> locations )
+    {
+        Location location = locations.apply( statement.location() );
+        if ( location == statement.location() )
+        {
+            return statement;
+        }
+        return statement.copy( location, statement.id(), statement.start(), statement.end(), statement.line(),
+                               statement.desc(), statement.symbolName(), statement.treeName(), statement.branch(),
+                               statement.count(), statement.ignored(), statement.tests() );
+    }
+
+    /**
+     * Submits renderers to the executor. Without executor renderers are only wrapped,
+     * they run on the calling thread in {@link #runAll(List)}.
+     */
+    private List<Future<Void>> submitAll( List<Callable<Void>> renderers )
+    {
+        List<Future<Void>> futures = new ArrayList<Future<Void>>( renderers.size() );
+        try
+        {
+            for ( Callable<Void> renderer : renderers )
+            {
+                futures.add( executor != null ? executor.submit( renderer ) : new FutureTask<Void>( renderer ) );
+            }
+            return futures;
+        }
+        catch ( RuntimeException e )
+        {
+            for ( Future<Void> future : futures )
+            {
+                future.cancel( true );
+            }
+            throw e;
+        }
+    }
+
+    private void runAll( List<Future<Void>> futures )
+        throws IOException
+    {
+        try
+        {
+            for ( Future<Void> future : futures )
+            {
+                if ( executor == null )
+                {
+                    ( (FutureTask<Void>) future ).run();
+                }
+                future.get();
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while writing HTML report", e );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            if ( cause instanceof IOException ioException )
+            {
+                throw ioException;
+            }
+            if ( cause instanceof RuntimeException runtimeException )
+            {
+                throw runtimeException;
+            }
+            if ( cause instanceof Error error )
+            {
+                throw error;
+            }
+            throw new IOException( cause );
+        }
+    }
+
+    /**
+     * Returns source file page paths relative to output directory.
+     */
+    private Set<String> filePages( Iterable<String> sources )
+    {
+        Set<String> filePages = new HashSet<String>();
+        for ( String source : sources )
+        {
+            filePages.add( sourceIndex.relativePath( source ) + ".html" );
+        }
+        return filePages;
+    }
+
+    private static boolean containsPages( List<File> partDirectories, Iterable<String> pages )
+    {
+        for ( String page : pages )
+        {
+            boolean found = false;
+            for ( File partDirectory : partDirectories )
+            {
+                if ( new File( partDirectory, page ).isFile() )
+                {
+                    found = true;
+                    break;
+                }
+            }
+            if ( !found )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void movePages( Path directory, Predicate<String> pages )
+        throws IOException
+    {
+        Path outputPath = outputDirectory.toPath();
+        Files.walkFileTree( directory, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile( Path file, BasicFileAttributes attrs )
+                throws IOException
+            {
+                String page = directory.relativize( file ).toString().replace( File.separatorChar, '/' );
+                if ( pages.test( page ) )
+                {
+                    Path target = outputPath.resolve( page );
+                    Files.createDirectories( target.getParent() );
+                    Files.move( file, target, StandardCopyOption.REPLACE_EXISTING );
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        } );
+    }
+}
@@ -17,6 +17,8 @@
 
 package org.scoverage.plugin;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Properties;
 
 import org.apache.maven.plugin.AbstractMojo;
@@ -33,9 +35,13 @@ import org.apache.maven.project.MavenProject;
  * <ul>
  * <li>removes added properties</li>
  * <li>restores original values of modified properties</li>
- * </ul> 
+ * </ul>
  * <br>
- * This is internal mojo, executed in forked {@code scoverage} life cycle.
+ * Stores instrumented classes in compile cache, if it is enabled and they were not restored from it.
+ * <br>
+ * <br>
+ * This is internal mojo, executed in forked {@code scoverage} life cycle,
+ * or in the main life cycle in single-pass mode.
  * <br>
  * 
  * @author <a href="mailto:gslowikowski@gmail.com">Grzegorz Slowikowski</a>
@@ -54,6 +60,26 @@ public class SCoveragePostCompileMojo
     @Parameter( property = "scoverage.skip", defaultValue = "false" )
     private boolean skip;
 
+    /**
+     * Instrument main compilation instead of compilation in forked {@code scoverage} life cycle.
+     * <br>
+     * Must have the same value as in {@code pre-compile} goal.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.singlePass", defaultValue = "false" )
+    private boolean singlePass;
+
+    /**
+     * Directory where the coverage files should be written.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.dataDirectory", defaultValue = "${project.build.directory}/scoverage-data", required = true, readonly = true )
+    private File dataDirectory;
+
     /**
      * Maven project to interact with.
      */
@@ -82,12 +108,45 @@ public class SCoveragePostCompileMojo
 
         restoreProperty( projectProperties, "addScalacArgs" );
         restoreProperty( projectProperties, "analysisCacheFile" );
-        restoreProperty( projectProperties, "maven.test.failure.ignore" );
+        if ( !singlePass )
+        {
+            restoreProperty( projectProperties, "maven.test.failure.ignore" );
+        }
+
+        Object cacheEntry = project.getContextValue( SCoveragePreCompileMojo.COMPILE_CACHE_CONTEXT_KEY );
+        if ( cacheEntry instanceof SCoverageCompileCache cache )
+        {
+            project.setContextValue( SCoveragePreCompileMojo.COMPILE_CACHE_CONTEXT_KEY, null );
+            if ( cache.isRestored() )
+            {
+                restoreProperty( projectProperties, "maven.main.skip" );
+            }
+            else
+            {
+                storeInCompileCache( cache );
+            }
+        }
 
         long te = System.currentTimeMillis();
         getLog().debug( String.format( "Mojo execution time: %d ms", te - ts ) );
     }
 
+    private void storeInCompileCache( SCoverageCompileCache cache )
+    {
+        try
+        {
+            if ( cache.store( new File( project.getBuild().getOutputDirectory() ), dataDirectory ) )
+            {
+                getLog().info( String.format( "Instrumented classes stored in compile cache [%s]", cache.getKey() ) );
+            }
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( String.format( "Cannot store instrumented classes in compile cache [%s]: %s",
+                                          cache.getKey(), e.getMessage() ) );
+        }
+    }
+
     private void restoreProperty( Properties projectProperties, String propertyName )
     {
         if ( projectProperties.containsKey( "scoverage.backup." + propertyName ) )
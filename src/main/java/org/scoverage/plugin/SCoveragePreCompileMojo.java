@@ -24,11 +24,12 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
 import javax.inject.Inject;
 
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -40,11 +41,8 @@ import org.codehaus.plexus.util.StringUtils;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
-import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.repository.RemoteRepository;
-import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
-import org.eclipse.aether.resolution.ArtifactResult;
 
 /**
  * Configures project for compilation with SCoverage instrumentation.
@@ -57,6 +55,10 @@ import org.eclipse.aether.resolution.ArtifactResult;
  * <br>
  * This is internal mojo, executed in forked {@code scoverage} life cycle.
  * <br>
+ * <br>
+ * In single-pass mode ({@code singlePass} parameter) it is bound to the main life cycle (together
+ * with {@code post-compile} goal), so the main compilation is instrumented and tests are run only once.
+ * <br>
  *
  * @author <a href="mailto:gslowikowski@gmail.com">Grzegorz Slowikowski</a>
  * @since 1.0.0
@@ -150,6 +152,58 @@ public class SCoveragePreCompileMojo
     @Parameter( property = "scoverage.additionalForkedProjectProperties" )
     private String additionalForkedProjectProperties;
 
+    /**
+     * Instrument main compilation instead of compilation in forked {@code scoverage} life cycle.
+     * <br>
+     * <br>
+     * Used when {@code pre-compile} and {@code post-compile} goals are bound to the main life cycle,
+     * so tests are run only once, with instrumented classes. Project output directories and final name
+     * are not changed and test failures are not ignored. Coverage reports and checks should then be
+     * generated with {@code report-only} and {@code check-only} goals, which do not fork the life cycle.
+     * <br>
+     * <br>
+     * Warning: project artifacts packaged in this mode contain instrumented classes.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.singlePass", defaultValue = "false" )
+    private boolean singlePass;
+
+    /**
+     * Reuse instrumented classes and instrumentation data of previous builds.
+     * <br>
+     * <br>
+     * Results of instrumented compilation are stored in {@code compileCacheDirectory}, keyed by a hash
+     * of source files, compile classpath, Scala version, instrumentation scalac arguments
+     * and compiler settings: version, dependencies and configuration (including executions' configuration)
+     * of {@code scala-maven-plugin} and {@code maven-compiler-plugin}, and {@code maven.compiler.*} properties.
+     * Compiler settings given in other ways (for example toolchains or {@code MAVEN_OPTS}) are not part of the key,
+     * clear the cache directory after changing them.
+     * If a matching entry exists, instrumented classes directory and {@code scoverage.coverage} file are restored
+     * from it and main compilation is skipped (using {@code maven.main.skip} property).
+     * Only compiler output (class and TASTy files) is cached, resources are copied by {@code process-resources}
+     * phase as usual.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.compileCache", defaultValue = "false" )
+    private boolean compileCache;
+
+    /**
+     * Directory where results of instrumented compilation are cached.
+     * <br>
+     * <br>
+     * Should be outside of build directory, so cached results survive {@code mvn clean}.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.compileCacheDirectory",
+                defaultValue = "${user.home}/.cache/scoverage-maven-plugin/compile" )
+    private File compileCacheDirectory;
+
     /**
      * Maven project to interact with.
      */
@@ -195,6 +249,12 @@ public class SCoveragePreCompileMojo
             return;
         }
 
+        if ( skip && singlePass )
+        {
+            getLog().info( "Skipping Scoverage instrumentation as configured" );
+            return;
+        }
+
         if ( skip )
         {
             getLog().info( "Skipping Scoverage execution as configured" );
@@ -257,7 +317,11 @@ public class SCoveragePreCompileMojo
             }
         }
 
-        SCoverageForkedLifecycleConfigurator.afterForkedLifecycleEnter( project, reactorProjects, additionalProjectPropertiesMap );
+        if ( !singlePass )
+        {
+            SCoverageForkedLifecycleConfigurator.afterForkedLifecycleEnter( project, reactorProjects,
+                                                                            additionalProjectPropertiesMap );
+        }
 
         try
         {
@@ -267,10 +331,11 @@ public class SCoveragePreCompileMojo
                             // backported to Scala 3.3 LTS
                             ( scalaVersion.full.startsWith( "3.3." ) && scalaVersion.isAtLeast( "3.3.4" ) );
 
-            List<Artifact> pluginArtifacts = getScoveragePluginArtifacts( scalaVersion );
+            SCoverageScalacArtifacts scalacArtifacts = SCoverageScalacArtifacts.resolve(
+                repositorySystem, repoSession, remoteRepos, scalaVersion, getScalacPluginVersion() );
             if ( scala2 ) // Scala 3 doesn't need scalac-scoverage-runtime
             {
-                addScalacScoverageRuntimeDependencyToClasspath( scalaVersion );
+                addScalacScoverageRuntimeDependencyToClasspath( scalacArtifacts.getRuntimeArtifact() );
             }
 
             String arg = ( scala2 ? SCALA2_DATA_DIR_OPTION : SCALA3_COVERAGE_OUT_OPTION ) + dataDirectory.getAbsolutePath();
@@ -313,7 +378,7 @@ public class SCoveragePreCompileMojo
             }
 
             if ( scala2 ) {
-                arg = PLUGIN_OPTION + pluginArtifacts.stream().map(x -> x.getFile().getAbsolutePath()).collect(Collectors.joining(String.valueOf(java.io.File.pathSeparatorChar)));
+                arg = PLUGIN_OPTION + scalacArtifacts.getPluginClasspath();
                 addScalacArgs = addScalacArgs + PIPE + arg;
             }
 
@@ -324,15 +389,23 @@ public class SCoveragePreCompileMojo
             // for scala-maven-plugin (version 3.1.0+)
             setProperty( projectProperties, "analysisCacheFile",
                          "${project.build.directory}/scoverage-analysis/compile" );
-            // for maven-surefire-plugin and scalatest-maven-plugin
-            setProperty( projectProperties, "maven.test.failure.ignore", "true" );
+            if ( !singlePass )
+            {
+                // for maven-surefire-plugin and scalatest-maven-plugin
+                setProperty( projectProperties, "maven.test.failure.ignore", "true" );
 
-            // for maven-jar-plugin
-            // VERY IMPORTANT! Prevents from overwriting regular project artifact file
-            // with instrumented one during "integration-check" or "integration-report" execution.
-            project.getBuild().setFinalName( "scoverage-" + project.getBuild().getFinalName() );
+                // for maven-jar-plugin
+                // VERY IMPORTANT! Prevents from overwriting regular project artifact file
+                // with instrumented one during "integration-check" or "integration-report" execution.
+                project.getBuild().setFinalName( "scoverage-" + project.getBuild().getFinalName() );
+            }
 
             saveSourceRootsToFile();
+
+            if ( compileCache )
+            {
+                restoreFromCompileCache( scalaVersion, addScalacArgs );
+            }
         }
         catch ( ArtifactResolutionException | IOException e )
         {
@@ -360,6 +433,89 @@ public class SCoveragePreCompileMojo
 
     private static final char PIPE = '|';
 
+    private static final List<String> COMPILER_PLUGIN_KEYS =
+        Arrays.asList( "net.alchim31.maven:scala-maven-plugin", "org.apache.maven.plugins:maven-compiler-plugin" );
+
+    /**
+     * Context value (of forked project) with compile cache entry used by {@link SCoveragePostCompileMojo}.
+     */
+    static final String COMPILE_CACHE_CONTEXT_KEY = SCoverageCompileCache.class.getName();
+
+    private void restoreFromCompileCache( ScalaVersion scalaVersion, String addScalacArgs )
+        throws IOException
+    {
+        List<File> classpath = new ArrayList<>();
+        for ( org.apache.maven.artifact.Artifact artifact : project.getArtifacts() )
+        {
+            if ( artifact.getFile() != null && artifact.getArtifactHandler().isAddedToClasspath()
+                && !org.apache.maven.artifact.Artifact.SCOPE_TEST.equals( artifact.getScope() )
+                && !org.apache.maven.artifact.Artifact.SCOPE_RUNTIME.equals( artifact.getScope() ) )
+            {
+                classpath.add( artifact.getFile() );
+            }
+        }
+        String key = SCoverageCompileCache.key( project.getCompileSourceRoots(), classpath, scalaVersion.full,
+                                                addScalacArgs, compilerSettings() );
+        SCoverageCompileCache cache = new SCoverageCompileCache( compileCacheDirectory, key );
+        project.setContextValue( COMPILE_CACHE_CONTEXT_KEY, cache );
+
+        File classesDirectory = new File( project.getBuild().getOutputDirectory() );
+        try
+        {
+            if ( cache.restore( classesDirectory, dataDirectory ) )
+            {
+                getLog().info( String.format( "Instrumented classes restored from compile cache [%s]", key ) );
+                // for maven-compiler-plugin (compile), scala-maven-plugin (compile)
+                setProperty( project.getProperties(), "maven.main.skip", "true" );
+            }
+            else
+            {
+                getLog().debug( String.format( "Compile cache miss [%s]", key ) );
+            }
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( String.format( "Cannot restore instrumented classes from compile cache [%s]: %s",
+                                          key, e.getMessage() ) );
+            project.setContextValue( COMPILE_CACHE_CONTEXT_KEY, null );
+        }
+    }
+
+    /**
+     * Returns effective configuration of compiler plugins, which is not part of classpath or sources
+     * but changes compilation results.
+     */
+    private List<String> compilerSettings()
+    {
+        List<String> settings = new ArrayList<>();
+        for ( String pluginKey : COMPILER_PLUGIN_KEYS )
+        {
+            Plugin plugin = project.getPlugin( pluginKey );
+            if ( plugin == null )
+            {
+                continue;
+            }
+            settings.add( pluginKey + ':' + plugin.getVersion() );
+            settings.add( String.valueOf( plugin.getConfiguration() ) );
+            for ( Dependency dependency : plugin.getDependencies() )
+            {
+                settings.add( dependency.getManagementKey() + ':' + dependency.getVersion() );
+            }
+            for ( PluginExecution execution : plugin.getExecutions() )
+            {
+                settings.add( execution.getId() + ':' + execution.getGoals() + ':' + execution.getConfiguration() );
+            }
+        }
+        for ( String name : new TreeSet<>( project.getProperties().stringPropertyNames() ) )
+        {
+            if ( name.startsWith( "maven.compiler." ) )
+            {
+                settings.add( name + '=' + project.getProperties().getProperty( name ) );
+            }
+        }
+        return settings;
+    }
+
     private ScalaVersion resolveScalaVersion()
     {
         String result = scalaVersion;
@@ -416,29 +572,14 @@ public class SCoveragePreCompileMojo
         }
     }
 
-    private List<Artifact> getScoveragePluginArtifacts(ScalaVersion scalaVersion )
-            throws ArtifactResolutionException {
-        List<Artifact> resolvedArtifacts = new ArrayList<>();
-        if ( scalaVersion.isScala2() ) // Scala 3 doesn't need scalac-scoverage-plugin
-        {
-            resolvedArtifacts.add(resolveScoverageArtifact("scalac-scoverage-plugin_" + scalaVersion.full ));
-        }
-        resolvedArtifacts.add(resolveScoverageArtifact("scalac-scoverage-domain_" + scalaVersion.compatible ));
-        resolvedArtifacts.add(resolveScoverageArtifact("scalac-scoverage-serializer_" + scalaVersion.compatible ));
-        return resolvedArtifacts;
-    }
-
     /**
      * We need to tweak our test classpath for Scoverage.
      */
     @SuppressWarnings( "deprecation" ) // didn't find a good way to do this with Aether artifacts
-    private void addScalacScoverageRuntimeDependencyToClasspath(ScalaVersion resolvedScalaVersion )
-        throws ArtifactResolutionException {
+    private void addScalacScoverageRuntimeDependencyToClasspath( Artifact runtimeArtifact ) {
 
         Set<org.apache.maven.artifact.Artifact> set = new LinkedHashSet<>(project.getDependencyArtifacts());
-        set.add(toMavenClasspathArtifact(
-                resolveScoverageArtifact("scalac-scoverage-runtime_" + resolvedScalaVersion.compatible)
-        ));
+        set.add(toMavenClasspathArtifact( runtimeArtifact ));
         project.setDependencyArtifacts( set);
     }
 
@@ -457,17 +598,6 @@ public class SCoveragePreCompileMojo
         );
     }
 
-    private Artifact resolveScoverageArtifact( String artifactId )
-            throws ArtifactResolutionException {
-
-        ArtifactRequest request = new ArtifactRequest();
-        request.setArtifact( new DefaultArtifact("org.scoverage", artifactId, "jar", getScalacPluginVersion()) );
-        request.setRepositories(remoteRepos);
-
-        ArtifactResult result = repositorySystem.resolveArtifact(repoSession, request);
-        return result.getArtifact();
-    }
-
     private void saveSourceRootsToFile() throws IOException
     {
         List<String> sourceRoots = project.getCompileSourceRoots();
@@ -22,12 +22,24 @@ import java.io.InputStreamReader;
 import java.io.IOException;
 import java.io.File;
 import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -46,6 +58,7 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.reporting.MavenReport;
 import org.apache.maven.reporting.MavenReportException;
+import org.scoverage.plugin.SCoverageAggregationAccumulator.ModuleCoverage;
 
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 
@@ -53,19 +66,9 @@ import org.eclipse.aether.RepositorySystemSession;
 
 import org.codehaus.plexus.util.StringUtils;
 
-import scala.Option;
-import scala.Tuple2;
-import scala.collection.immutable.Seq;
-import scala.jdk.javaapi.CollectionConverters;
-
 import scoverage.domain.Constants;
 import scoverage.domain.Coverage;
-import scoverage.domain.Statement;
-import scoverage.reporter.IOUtils;
 import scoverage.serialize.Serializer;
-import scoverage.reporter.CoberturaXmlWriter;
-import scoverage.reporter.ScoverageHtmlWriter;
-import scoverage.reporter.ScoverageXmlWriter;
 
 /**
  * Generates code coverage by unit tests report in forked {@code scoverage} life cycle.
@@ -130,6 +133,148 @@ public class SCoverageReportMojo
     @Parameter( property = "scoverage.failOnError", defaultValue = "true", readonly = true )
     private boolean failOnError;
 
+    /**
+     * Maximum number of threads used to load coverage data and write coverage reports.
+     * <br>
+     * <br>
+     * Cobertura XML, scoverage XML and HTML reports are written concurrently,
+     * HTML source file pages are rendered concurrently, the same report is written with any number of threads.
+     * Measurement files of a module are read concurrently.
+     * In aggregated report generation, modules coverage data is loaded concurrently.
+     * All of them share one thread pool of this size per report goal execution.
+     * Zero or negative value means the number of available processors.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.reportThreads", defaultValue = "0" )
+    private int reportThreads;
+
+    /**
+     * Store snapshot of measurements in data directory and reuse it while coverage data is unchanged.
+     * <br>
+     * <br>
+     * Snapshot contains all measurement files' invocations, with test names, in compact binary form.
+     * It is keyed by content hash of the instrumentation data and measurement files.
+     * In aggregated report generation only modules with changed coverage data parse measurement files again.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.useSnapshots", defaultValue = "true" )
+    private boolean useSnapshots;
+
+    /**
+     * Keep total, package and file coverage counters in memory for the rest of the build
+     * and reuse them while coverage data is unchanged.
+     * <br>
+     * <br>
+     * Counters of coverage loaded by report generation are reused by {@code check} goal in the same build.
+     * Statement objects are not kept.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.useSessionCache", defaultValue = "true" )
+    private boolean useSessionCache;
+
+    /**
+     * Update HTML report output incrementally.
+     * <br>
+     * <br>
+     * Only pages of source files whose measured statements, size or modification time changed
+     * since previous report are rendered again, index and package pages are rendered if any source file changed.
+     * If nothing changed, HTML report writing is skipped. Inputs of previous report are recorded
+     * in {@code scoverage-html.manifest} file in XML report output directory.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.incrementalHtml", defaultValue = "true" )
+    private boolean incrementalHtml;
+
+    /**
+     * Keep names of tests invoking every statement in measured coverage.
+     * <br>
+     * <br>
+     * Test names are used only by HTML report source file pages. Without them statement invocation
+     * counts are the same, but measured coverage takes much less memory with big test suites.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.perTestData", defaultValue = "true" )
+    private boolean perTestData;
+
+    /**
+     * Store aggregated coverage in compact columnar form instead of statement objects.
+     * <br>
+     * <br>
+     * Statement fields are stored in primitive arrays and strings in a dictionary,
+     * modules' coverage is released as soon as it is added.
+     * Intended for huge reactors, where aggregated statement objects do not fit into the heap.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.columnarAggregation", defaultValue = "false" )
+    private boolean columnarAggregation;
+
+    /**
+     * Maximum number of aggregated statements stored on the heap in columnar aggregation,
+     * next statements are stored in a memory-mapped temporary file in the build directory.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.columnarSpillThreshold", defaultValue = "4000000" )
+    private long columnarSpillThreshold;
+
+    /**
+     * Write aggregated report in background, finishing before the end of the build.
+     * <br>
+     * <br>
+     * The aggregating module submits report writing to a dedicated thread pool and continues, so writing
+     * overlaps with building of the remaining modules. The build waits for the report at the end of the session
+     * and fails if report generation fails (unless {@code failOnError} is {@code false}).
+     * The end of the session is after Maven logs the build result, so a failed report is logged
+     * after "BUILD SUCCESS" and then the build exits with an error code.
+     * <br>
+     * <br>
+     * Requires the plugin to be declared with {@code <extensions>true</extensions>},
+     * otherwise aggregated report is written synchronously.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.asyncAggregation", defaultValue = "false" )
+    private boolean asyncAggregation;
+
+    /**
+     * Additionally generate aggregated report of every aggregator ({@code pom} packaging) module's subtree.
+     * <br>
+     * <br>
+     * Subtree reports are generated in aggregator modules' report directories. Aggregated coverage
+     * of an aggregator is composed of its children's coverage, aggregators' children contribute
+     * their already composed subtree coverage, so the execution root report combines only
+     * top-level subtrees. Not supported with {@code columnarAggregation}.
+     * <br>
+     *
+     * @since 2.1.6
+     */
+    @Parameter( property = "scoverage.hierarchicalAggregation", defaultValue = "false" )
+    private boolean hierarchicalAggregation;
+
+    /**
+     * Thread pool of this report goal execution, created on first use.
+     */
+    private ExecutorService reportExecutor;
+
+    /**
+     * Set on report executor threads, tasks started from them run on the calling thread.
+     */
+    private final ThreadLocal<Boolean> onReportThread = ThreadLocal.withInitial( () -> Boolean.FALSE );
+
     /**
      * Maven project to interact with.
      */
@@ -236,9 +381,10 @@ public class SCoverageReportMojo
             long ts = System.currentTimeMillis();
 
             // If top-level project is last reactor project it should generate ONLY aggregated report here
+            Coverage moduleCoverage = null;
             if ( canGenerateNonAggregatedReport )
             {
-                generateReports();
+                moduleCoverage = generateReports();
             }
 
             // Aggregated report must be generated by exactly one thread after all modules complete.
@@ -246,7 +392,7 @@ public class SCoverageReportMojo
             // Whatever project it is, it must generate report in top-level project's site directory.
             if ( canGenerateAggregatedReport )
             {
-                tryGenerateAggregatedReport();
+                tryGenerateAggregatedReport( moduleCoverage );
             }
 
             long te = System.currentTimeMillis();
@@ -475,7 +621,7 @@ public class SCoverageReportMojo
         return ResourceBundle.getBundle( "scoverage-report", locale, getClass().getClassLoader() );
     }
 
-    private void generateReports()
+    private Coverage generateReports()
         throws MavenReportException /*, RuntimeException*/
     {
         @SuppressWarnings( "unchecked" )
@@ -489,29 +635,20 @@ public class SCoverageReportMojo
         mkdirs( outputDirectory );
         mkdirs( xmlOutputDirectory );
 
-        File coverageFile = Serializer.coverageFile( dataDirectory );
-        getLog().info( String.format( "Reading scoverage instrumentation [%s]...", coverageFile.getAbsolutePath() ) );
-        Coverage coverage = Serializer.deserialize( coverageFile, executionRootDirectory() );
-
-        getLog().info( String.format( "Reading scoverage measurements [%s*]...",
-                                      new File( dataDirectory, Constants.MeasurementsPrefix() ).getAbsolutePath() ) );
-        List<File> measurementFiles = Arrays.asList( IOUtils.findMeasurementFiles( dataDirectory ) );
-        scala.collection.Set<Tuple2<Object, String>> measurements =
-                IOUtils.invoked( CollectionConverters.asScala( measurementFiles ).toSeq(), encoding );
-        coverage.apply( measurements );
+        Coverage coverage = loadMeasuredCoverage( dataDirectory );
 
         getLog().info( "Generating coverage reports..." );
         writeReports( coverage, sourceRoots, xmlOutputDirectory, xmlOutputDirectory, outputDirectory );
         getLog().info( "Coverage reports completed." );
+        return coverage;
     }
 
     private void generateAggregatedReports()
         throws MavenReportException
     {
-        Coverage coverage = new Coverage();
-        AtomicInteger id = new AtomicInteger();
+        List<MavenProject> modules = new ArrayList<MavenProject>();
         List<File> scoverageDataDirs = new ArrayList<File>();
-        List<File> sourceRoots = new ArrayList<File>();
+        List<Callable<ModuleCoverage>> loaders = new ArrayList<Callable<ModuleCoverage>>();
         for ( MavenProject module : reactorProjects )
         {
             if ( isNotPom( module ) )
@@ -519,65 +656,221 @@ public class SCoverageReportMojo
                 File scoverageDataDir = rebase( dataDirectory, module.getBasedir() );
                 if ( scoverageDataDir.isDirectory() )
                 {
+                    modules.add( module );
                     scoverageDataDirs.add( scoverageDataDir );
-                    File coverageFile = Serializer.coverageFile(scoverageDataDir);
-                    if (coverageFile.exists()) {
-                        Coverage subCoverage  = Serializer.deserialize(coverageFile, executionRootDirectory() );
-                        List<File> measurementFiles = Arrays.asList( IOUtils.findMeasurementFiles( scoverageDataDir ) );
-                        scala.collection.Set<Tuple2<Object, String>> measurements =
-                                IOUtils.invoked( CollectionConverters.asScala( measurementFiles ).toSeq(), encoding );
-                        subCoverage.apply( measurements );
-                        subCoverage.statements().foreach(statement -> {
-                            int statementId = id.getAndIncrement();
-                            Statement copy = statement.copy(
-                                    statement.location(),
-                                    statementId,
-                                    statement.start(),
-                                    statement.end(),
-                                    statement.line(),
-                                    statement.desc(),
-                                    statement.symbolName(),
-                                    statement.treeName(),
-                                    statement.branch(),
-                                    statement.count(),
-                                    statement.ignored(),
-                                    statement.tests()
-                            );
-                            coverage.add(copy);
-                            return null;
-                        });
-                    }
+                    loaders.add( () -> takeOrLoadModuleCoverage( scoverageDataDir ) );
+                }
+            }
+        }
+
+        if ( columnarAggregation )
+        {
+            if ( hierarchicalAggregation )
+            {
+                getLog().warn( "Hierarchical aggregation is not supported with columnar aggregation,"
+                    + " generating execution root aggregated report only" );
+            }
+            generateColumnarAggregatedReports( scoverageDataDirs, loaders );
+            return;
+        }
+
+        // Modules are loaded concurrently, but added to aggregated coverage in reactor order,
+        // so statement id offsets and report output are stable between runs
+        List<ModuleCoverage> moduleCoverages = invokeAll( loaders );
+
+        if ( hierarchicalAggregation )
+        {
+            generateHierarchicalAggregatedReports( modules, moduleCoverages, scoverageDataDirs );
+            return;
+        }
+
+        SCoverageAggregatedCoverage coverage = new SCoverageAggregatedCoverage();
+        List<File> sourceRoots = new ArrayList<File>();
+        for ( ModuleCoverage moduleCoverage : moduleCoverages )
+        {
+            if ( moduleCoverage.coverage != null )
+            {
+                coverage.addModule( moduleCoverage.coverage );
+            }
+            sourceRoots.addAll( moduleCoverage.sourceRoots );
+        }
+
+        writeAggregatedReports( coverage, sourceRoots, scoverageDataDirs, executionRootDirectory() );
+    }
+
+    /**
+     * Generates aggregated report of every aggregator module's subtree and of the execution root.
+     * Every aggregator's coverage is a view of its children's coverage, children being modules
+     * and nested aggregators' views, in reactor order.
+     */
+    private void generateHierarchicalAggregatedReports( List<MavenProject> modules,
+                                                        List<ModuleCoverage> moduleCoverages,
+                                                        List<File> scoverageDataDirs )
+        throws MavenReportException
+    {
+        File executionRoot = executionRootDirectory().getAbsoluteFile();
+        List<MavenProject> aggregators = new ArrayList<MavenProject>();
+        for ( MavenProject reactorProject : reactorProjects )
+        {
+            if ( !isNotPom( reactorProject ) && !reactorProject.getModules().isEmpty()
+                && !reactorProject.getBasedir().getAbsoluteFile().equals( executionRoot )
+                && isAncestor( executionRoot, reactorProject.getBasedir() ) )
+            {
+                aggregators.add( reactorProject );
+            }
+        }
+
+        Map<MavenProject, Subtree> subtrees = new LinkedHashMap<MavenProject, Subtree>();
+        for ( MavenProject aggregator : aggregators )
+        {
+            subtrees.put( aggregator, new Subtree() );
+        }
+        Subtree root = new Subtree();
+        for ( MavenProject reactorProject : reactorProjects )
+        {
+            int moduleIndex = modules.indexOf( reactorProject );
+            Subtree subtree = subtrees.get( reactorProject );
+            if ( moduleIndex < 0 && subtree == null )
+            {
+                continue;
+            }
+            MavenProject parent = nearestAggregator( reactorProject, aggregators );
+            Subtree parentSubtree = parent != null ? subtrees.get( parent ) : root;
+            if ( subtree != null )
+            {
+                parentSubtree.children.add( subtree );
+            }
+            else
+            {
+                parentSubtree.modules.add( moduleCoverages.get( moduleIndex ) );
+                parentSubtree.dataDirs.add( scoverageDataDirs.get( moduleIndex ) );
+            }
+        }
+
+        // Views are composed bottom-up, so every view is complete before it is added to its parent's view
+        root.compose();
+        for ( Map.Entry<MavenProject, Subtree> entry : subtrees.entrySet() )
+        {
+            Subtree subtree = entry.getValue();
+            if ( !subtree.dataDirs.isEmpty() )
+            {
+                getLog().info( String.format( "Generating aggregated report of %s subtree",
+                                              entry.getKey().getArtifactId() ) );
+                writeAggregatedReports( subtree.coverage, subtree.sourceRoots, subtree.dataDirs,
+                                        entry.getKey().getBasedir() );
+            }
+        }
+        writeAggregatedReports( root.coverage, root.sourceRoots, scoverageDataDirs, executionRoot );
+    }
+
+    private static MavenProject nearestAggregator( MavenProject project, List<MavenProject> aggregators )
+    {
+        MavenProject nearest = null;
+        for ( MavenProject aggregator : aggregators )
+        {
+            if ( aggregator != project && isAncestor( aggregator.getBasedir(), project.getBasedir() )
+                && ( nearest == null || isAncestor( nearest.getBasedir(), aggregator.getBasedir() ) ) )
+            {
+                nearest = aggregator;
+            }
+        }
+        return nearest;
+    }
+
+    private static boolean isAncestor( File directory, File file )
+    {
+        File absoluteDirectory = directory.getAbsoluteFile();
+        for ( File f = file.getAbsoluteFile(); f != null; f = f.getParentFile() )
+        {
+            if ( f.equals( absoluteDirectory ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Aggregated coverage of an aggregator module's subtree.
+     */
+    private static final class Subtree
+    {
+        private final List<ModuleCoverage> modules = new ArrayList<ModuleCoverage>();
+
+        private final List<Subtree> children = new ArrayList<Subtree>();
+
+        private final SCoverageAggregatedCoverage coverage = new SCoverageAggregatedCoverage();
+
+        private final List<File> sourceRoots = new ArrayList<File>();
+
+        private final List<File> dataDirs = new ArrayList<File>();
 
-                    File sourceRootsFile = new File( scoverageDataDir, "source.roots" );
-                    if ( sourceRootsFile.isFile() )
+        private void compose()
+        {
+            for ( ModuleCoverage moduleCoverage : modules )
+            {
+                if ( moduleCoverage.coverage != null )
+                {
+                    coverage.addModule( moduleCoverage.coverage );
+                }
+                sourceRoots.addAll( moduleCoverage.sourceRoots );
+            }
+            for ( Subtree child : children )
+            {
+                child.compose();
+                coverage.addModule( child.coverage );
+                sourceRoots.addAll( child.sourceRoots );
+                dataDirs.addAll( child.dataDirs );
+            }
+        }
+    }
+
+    /**
+     * Aggregates modules' coverage into columnar statement store. Modules are loaded in batches
+     * of report threads size and released after they are added, so at most one batch
+     * of modules' statement objects is held in memory.
+     */
+    private void generateColumnarAggregatedReports( List<File> scoverageDataDirs,
+                                                    List<Callable<ModuleCoverage>> loaders )
+        throws MavenReportException
+    {
+        File spillDirectory = rebase( dataDirectory, executionRootDirectory() ).getParentFile();
+        mkdirs( spillDirectory );
+        try ( SCoverageStatementStore coverage = new SCoverageStatementStore( columnarSpillThreshold, spillDirectory ) )
+        {
+            List<File> sourceRoots = new ArrayList<File>();
+            int batchSize = reportThreads();
+            for ( int from = 0; from < loaders.size(); from += batchSize )
+            {
+                List<Callable<ModuleCoverage>> batch =
+                    loaders.subList( from, Math.min( from + batchSize, loaders.size() ) );
+                for ( ModuleCoverage moduleCoverage : invokeAll( batch ) )
+                {
+                    if ( moduleCoverage.coverage != null )
                     {
-                        try
-                        {
-                            BufferedReader r = new BufferedReader( new InputStreamReader(
-                                    new FileInputStream( sourceRootsFile ), "UTF-8" ) );
-                            try
-                            {
-                                String path = r.readLine();
-                                while ( path != null )
-                                {
-                                    sourceRoots.add(new File(path));
-                                    path = r.readLine();
-                                }
-                            }
-                            finally
-                            {
-                                r.close();
-                            }
-                        }
-                        catch ( IOException e )
-                        {
-                            throw new MavenReportException( "...", e );
-                        }
+                        coverage.addModule( moduleCoverage.coverage );
                     }
+                    sourceRoots.addAll( moduleCoverage.sourceRoots );
                 }
             }
+            if ( coverage.isSpilled() )
+            {
+                getLog().info( String.format( "Aggregated %d statements, statements above %d stored"
+                    + " in a memory-mapped file.", coverage.size(), columnarSpillThreshold ) );
+            }
+
+            writeAggregatedReports( coverage, sourceRoots, scoverageDataDirs, executionRootDirectory() );
         }
+        catch ( IOException e )
+        {
+            throw new MavenReportException( "Cannot store aggregated coverage", e );
+        }
+    }
 
+    private void writeAggregatedReports( Coverage coverage, List<File> sourceRoots, List<File> scoverageDataDirs,
+                                         File reportProjectDirectory )
+        throws MavenReportException
+    {
         /* Empty report must be generated or top-level site will contain invalid link to non-existent Scoverage report
         if ( scoverageDataDirs.isEmpty() )
         {
@@ -600,63 +893,474 @@ public class SCoverageReportMojo
                     scoverageDataDirs.size() ) );
         }
 
-        File executionRootOutputDirectory = rebase( outputDirectory, executionRootDirectory() );
-        File executionRootXmlOutputDirectory = rebase( xmlOutputDirectory, executionRootDirectory() );
+        File aggregatedOutputDirectory = rebase( outputDirectory, reportProjectDirectory );
+        File aggregatedXmlOutputDirectory = rebase( xmlOutputDirectory, reportProjectDirectory );
 
-        mkdirs( executionRootOutputDirectory );
-        mkdirs( executionRootXmlOutputDirectory );
+        mkdirs( aggregatedOutputDirectory );
+        mkdirs( aggregatedXmlOutputDirectory );
 
         getLog().info( "Generating coverage aggregated reports..." );
-        writeReports( coverage, sourceRoots, executionRootXmlOutputDirectory, executionRootXmlOutputDirectory,
-                      executionRootOutputDirectory );
+        writeReports( coverage, sourceRoots, aggregatedXmlOutputDirectory, aggregatedXmlOutputDirectory,
+                      aggregatedOutputDirectory );
         getLog().info( "Coverage aggregated reports completed." );
     }
 
+    /**
+     * Returns module's coverage pushed to aggregation accumulator when the module's report finished,
+     * or loads it if the module did not push it.
+     */
+    private ModuleCoverage takeOrLoadModuleCoverage( File scoverageDataDir )
+        throws MavenReportException
+    {
+        ModuleCoverage moduleCoverage =
+            SCoverageAggregationAccumulator.take( repositorySystemSession, scoverageDataDir );
+        return moduleCoverage != null ? moduleCoverage : loadModuleCoverage( scoverageDataDir );
+    }
+
+    /**
+     * Loads measured coverage and source roots of a single module for aggregation.
+     * Safe to call concurrently for different modules.
+     */
+    private ModuleCoverage loadModuleCoverage( File scoverageDataDir )
+        throws MavenReportException
+    {
+        Coverage subCoverage = null;
+        if ( Serializer.coverageFile( scoverageDataDir ).exists() )
+        {
+            subCoverage = readMeasuredCoverage( scoverageDataDir, executionRootDirectory(), false );
+        }
+        return moduleCoverage( scoverageDataDir, subCoverage );
+    }
+
+    /**
+     * Pairs module's measured coverage with source roots read from module's data directory.
+     */
+    private ModuleCoverage moduleCoverage( File scoverageDataDir, Coverage subCoverage )
+        throws MavenReportException
+    {
+        List<File> sourceRoots = new ArrayList<File>();
+        File sourceRootsFile = new File( scoverageDataDir, "source.roots" );
+        if ( sourceRootsFile.isFile() )
+        {
+            try ( BufferedReader r = new BufferedReader( new InputStreamReader(
+                    new FileInputStream( sourceRootsFile ), StandardCharsets.UTF_8 ) ) )
+            {
+                String path = r.readLine();
+                while ( path != null )
+                {
+                    sourceRoots.add( new File( path ) );
+                    path = r.readLine();
+                }
+            }
+            catch ( IOException e )
+            {
+                throw new MavenReportException( String.format( "Cannot read \"%s\" file",
+                                                               sourceRootsFile.getAbsolutePath() ), e );
+            }
+        }
+
+        return new ModuleCoverage( subCoverage, sourceRoots );
+    }
+
+    /**
+     * Loads module's instrumentation data and applies measurements to it.
+     * If session cache is enabled, caches counters of loaded coverage for {@code check} goal.
+     */
+    private Coverage loadMeasuredCoverage( File scoverageDataDir )
+        throws MavenReportException
+    {
+        File sourceRoot = executionRootDirectory();
+        if ( !useSessionCache )
+        {
+            return readMeasuredCoverage( scoverageDataDir, sourceRoot, true );
+        }
+
+        // Key is created before reading, so coverage data changed while reading is not cached as current
+        String cacheKey = SCoverageSessionCache.key( scoverageDataDir, sourceRoot );
+        Coverage coverage = readMeasuredCoverage( scoverageDataDir, sourceRoot, true );
+        SCoverageSessionCache.put( repositorySystemSession, cacheKey, coverage );
+        return coverage;
+    }
+
+    /**
+     * Reads module's instrumentation data and applies measurements to it.
+     * If snapshots are enabled, reuses module's measurements snapshot if coverage data did not change
+     * since it was written, otherwise writes new snapshot.
+     */
+    private Coverage readMeasuredCoverage( File scoverageDataDir, File sourceRoot, boolean logInfo )
+        throws MavenReportException
+    {
+        File coverageFile = Serializer.coverageFile( scoverageDataDir );
+        logLoading( logInfo, String.format( "Reading scoverage instrumentation [%s]...",
+                                            coverageFile.getAbsolutePath() ) );
+        Coverage coverage = SCoverageInstrumentationCache.load( scoverageDataDir, sourceRoot, getLog() );
+
+        try
+        {
+            String fingerprint = null;
+            SCoverageInvocations invocations = null;
+            if ( useSnapshots )
+            {
+                fingerprint = SCoverageSnapshot.fingerprint( scoverageDataDir, encoding );
+                invocations = SCoverageSnapshot.read( scoverageDataDir, fingerprint );
+            }
+            if ( invocations != null )
+            {
+                logLoading( logInfo, String.format( "Reading scoverage snapshot [%s]...",
+                                                    scoverageDataDir.getAbsolutePath() ) );
+            }
+            else
+            {
+                logLoading( logInfo, String.format( "Reading scoverage measurements [%s*]...",
+                                                    new File( scoverageDataDir, Constants.MeasurementsPrefix() ).getAbsolutePath() ) );
+                invocations = SCoverageMeasurements.load( scoverageDataDir, encoding, concurrentExecutor() );
+                if ( fingerprint != null )
+                {
+                    writeSnapshot( invocations, scoverageDataDir, fingerprint );
+                }
+            }
+            invocations.applyTo( coverage, perTestData );
+        }
+        catch ( IOException e )
+        {
+            throw new MavenReportException( String.format( "Cannot read scoverage measurements [%s]",
+                                                           scoverageDataDir.getAbsolutePath() ), e );
+        }
+        return coverage;
+    }
+
+    private void writeSnapshot( SCoverageInvocations invocations, File scoverageDataDir, String fingerprint )
+    {
+        try
+        {
+            SCoverageSnapshot.write( invocations, scoverageDataDir, fingerprint );
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( String.format( "Cannot write scoverage snapshot [%s]: %s",
+                                          scoverageDataDir.getAbsolutePath(), e.getMessage() ) );
+        }
+    }
+
+    private void logLoading( boolean logInfo, String message )
+    {
+        if ( logInfo )
+        {
+            getLog().info( message );
+        }
+        else
+        {
+            getLog().debug( message );
+        }
+    }
+
     /**
      * Attempts to perform aggregated report generation.
      * Uses the aggregation coordinator to ensure only one module generates the aggregated report.
+     *
+     * @param moduleCoverage coverage loaded by module's report, {@code null} if module's report was not generated
      */
-    private void tryGenerateAggregatedReport()
+    private void tryGenerateAggregatedReport( Coverage moduleCoverage )
+        throws MavenReportException
     {
         String moduleId = project.getGroupId() + ":" + project.getArtifactId();
         Set<String> expectedModuleIds = getExpectedModuleIds();
 
+        // Module's coverage is accumulated now, concurrently with other modules, instead of loaded by the aggregating
+        // module. Coverage already loaded by module's report is reused, so module's data is read only once.
+        // Columnar aggregation loads modules in batches to bound memory, so modules are not accumulated.
+        if ( !columnarAggregation && dataDirectory.isDirectory() )
+        {
+            SCoverageAggregationAccumulator.add( repositorySystemSession, dataDirectory, moduleCoverage != null
+                ? moduleCoverage( dataDirectory, moduleCoverage ) : loadModuleCoverage( dataDirectory ) );
+        }
+
         boolean shouldAggregate = SCoverageAggregationCoordinator.shouldPerformAggregation( repositorySystemSession, moduleId, expectedModuleIds );
 
         if ( shouldAggregate )
         {
             getLog().info( String.format( "Module %s is generating aggregated report (last of %d modules with scoverage enabled)",
                     project.getArtifactId(), expectedModuleIds.size() ) );
+            if ( asyncAggregation && SCoverageAggregationParticipant.isActive( repositorySystemSession ) )
+            {
+                SCoverageAggregationParticipant.submit( repositorySystemSession, () -> {
+                    generateAggregatedReportsInBackground();
+                    return null;
+                } );
+                getLog().info( "Aggregated report is written in background, the build waits for it at the end" );
+                return;
+            }
+            if ( asyncAggregation )
+            {
+                getLog().warn( "Writing aggregated report synchronously, asyncAggregation requires"
+                    + " the plugin to be declared with <extensions>true</extensions>" );
+            }
             try
             {
                 generateAggregatedReports();
             }
-            catch ( MavenReportException e )
+            finally
             {
-                throw new RuntimeException( e );
+                SCoverageAggregationAccumulator.clear( repositorySystemSession );
             }
         }
     }
 
+    /**
+     * Generates aggregated reports on background thread. Errors are reported like in {@link #generate},
+     * failure is rethrown to the participant only if the build should fail.
+     */
+    private void generateAggregatedReportsInBackground()
+        throws MavenReportException
+    {
+        try
+        {
+            generateAggregatedReports();
+        }
+        catch ( MavenReportException | RuntimeException e )
+        {
+            if ( failOnError )
+            {
+                throw e;
+            }
+            getLog().error( "Error while creating scoverage report: " + e.getMessage(), e );
+        }
+        finally
+        {
+            SCoverageAggregationAccumulator.clear( repositorySystemSession );
+        }
+    }
+
     private void writeReports( Coverage coverage, List<File> sourceRoots, File coberturaXmlOutputDirectory,
                                File scoverageXmlOutputDirectory, File scoverageHtmlOutputDirectory )
+        throws MavenReportException
     {
-        Seq<File> sourceRootsAsScalaSeq = CollectionConverters.asScala( sourceRoots ).toSeq();
+        SCoverageSourceIndex sourceIndex = buildSourceIndex( sourceRoots, coverage );
+
+        // Writers only read the measured coverage model, so they can run concurrently.
+        // HTML report is written on the calling thread, its pages are rendered on report threads.
+        List<Future<Void>> xmlWriters = submitAll( Arrays.<Callable<Void>>asList(
+            () -> {
+                new SCoverageCoberturaXmlWriter( sourceIndex, coberturaXmlOutputDirectory, encoding ).write( coverage );
+                getLog().info( String.format( "Written Cobertura XML report [%s]",
+                                              new File( coberturaXmlOutputDirectory, "cobertura.xml" ).getAbsolutePath() ) );
+                return null;
+            },
+            () -> {
+                new SCoverageXmlWriter( sourceIndex, scoverageXmlOutputDirectory, encoding ).write( coverage );
+                getLog().info( String.format( "Written XML coverage report [%s]",
+                                              new File( scoverageXmlOutputDirectory, "scoverage.xml" ).getAbsolutePath() ) );
+                return null;
+            } ) );
+        try
+        {
+            writeHtmlReport( coverage, sourceIndex, scoverageHtmlOutputDirectory,
+                             new File( scoverageXmlOutputDirectory, "scoverage-html.manifest" ) );
+        }
+        catch ( IOException e )
+        {
+            for ( Future<Void> xmlWriter : xmlWriters )
+            {
+                xmlWriter.cancel( true );
+            }
+            throw new MavenReportException( "Coverage report generation failed: " + e.getMessage(), e );
+        }
+        getAll( xmlWriters );
 
-        new CoberturaXmlWriter( sourceRootsAsScalaSeq, coberturaXmlOutputDirectory, Option.<String>apply( encoding ) ).write( coverage );
-        getLog().info( String.format( "Written Cobertura XML report [%s]",
-                                      new File( coberturaXmlOutputDirectory, "cobertura.xml" ).getAbsolutePath() ) );
+        getLog().info( String.format( "Statement coverage.: %s%%", coverage.statementCoverageFormatted() ) );
+        getLog().info( String.format( "Branch coverage....: %s%%", coverage.branchCoverageFormatted() ) );
+    }
 
-        new ScoverageXmlWriter( sourceRootsAsScalaSeq, scoverageXmlOutputDirectory, false, Option.<String>apply( encoding ) ).write( coverage );
-        getLog().info( String.format( "Written XML coverage report [%s]",
-                                      new File( scoverageXmlOutputDirectory, "scoverage.xml" ).getAbsolutePath() ) );
+    /**
+     * Indexes coverage source files by source root once per report. Writers get only source roots
+     * containing measured source files, so in aggregated report they do not scan roots of all modules.
+     */
+    private SCoverageSourceIndex buildSourceIndex( List<File> sourceRoots, Coverage coverage )
+        throws MavenReportException
+    {
+        SCoverageSourceIndex sourceIndex;
+        try
+        {
+            sourceIndex = SCoverageSourceIndex.build( sourceRoots, coverage );
+        }
+        catch ( IOException e )
+        {
+            throw new MavenReportException( "Cannot resolve source roots", e );
+        }
 
-        new ScoverageHtmlWriter( sourceRootsAsScalaSeq, scoverageHtmlOutputDirectory, Option.<String>apply( encoding ) ).write( coverage );
-        getLog().info( String.format( "Written HTML coverage report [%s]",
-                                      new File( scoverageHtmlOutputDirectory, "index.html" ).getAbsolutePath() ) );
+        for ( Map.Entry<String, List<String>> ambiguousPath : sourceIndex.ambiguousPaths().entrySet() )
+        {
+            getLog().warn( String.format( "Ambiguous source path [%s], report pages of %s overwrite each other",
+                                          ambiguousPath.getKey(), ambiguousPath.getValue() ) );
+        }
+        for ( String source : sourceIndex.unresolvedSources() )
+        {
+            getLog().warn( String.format( "No source root found for [%s]", source ) );
+        }
+        getLog().debug( String.format( "%d of %d source roots contain measured sources",
+                                       sourceIndex.usedSourceRoots().size(), sourceRoots.size() ) );
+        return sourceIndex;
+    }
 
-        getLog().info( String.format( "Statement coverage.: %s%%", coverage.statementCoverageFormatted() ) );
-        getLog().info( String.format( "Branch coverage....: %s%%", coverage.branchCoverageFormatted() ) );
+    private void writeHtmlReport( Coverage coverage, SCoverageSourceIndex sourceIndex,
+                                  File scoverageHtmlOutputDirectory, File manifestFile )
+        throws IOException
+    {
+        File indexFile = new File( scoverageHtmlOutputDirectory, "index.html" );
+        if ( !incrementalHtml || !sourceIndex.ambiguousPaths().isEmpty() || !sourceIndex.unresolvedSources().isEmpty() )
+        {
+            // Without unique source file pages report cannot be updated per page
+            Files.deleteIfExists( manifestFile.toPath() );
+            newHtmlWriter( sourceIndex, scoverageHtmlOutputDirectory ).write( coverage );
+            getLog().info( String.format( "Written HTML coverage report [%s]", indexFile.getAbsolutePath() ) );
+            return;
+        }
+
+        SCoverageHtmlManifest manifest =
+            SCoverageHtmlManifest.of( coverage, sourceIndex, encoding, scoverageHtmlOutputDirectory );
+        SCoverageHtmlManifest previous = SCoverageHtmlManifest.read( manifestFile );
+        Set<String> changedSources = manifest.changedSources( previous, scoverageHtmlOutputDirectory );
+        List<String> removedPages = manifest.removedPages( previous );
+        if ( changedSources.isEmpty() && removedPages.isEmpty() && indexFile.isFile() )
+        {
+            getLog().info( String.format( "HTML coverage report is up to date [%s]", indexFile.getAbsolutePath() ) );
+            return;
+        }
+
+        // Invalidate previous manifest first, new one is written only after all pages are in place
+        Files.deleteIfExists( manifestFile.toPath() );
+        for ( String page : removedPages )
+        {
+            Files.deleteIfExists( new File( scoverageHtmlOutputDirectory, page ).toPath() );
+        }
+        newHtmlWriter( sourceIndex, scoverageHtmlOutputDirectory ).write( coverage, changedSources );
+        manifest.write( manifestFile );
+        getLog().info( String.format( "Written HTML coverage report [%s], %d source file pages updated",
+                                      indexFile.getAbsolutePath(), changedSources.size() ) );
+    }
+
+    private SCoverageParallelHtmlWriter newHtmlWriter( SCoverageSourceIndex sourceIndex,
+                                                      File scoverageHtmlOutputDirectory )
+    {
+        return new SCoverageParallelHtmlWriter( sourceIndex, scoverageHtmlOutputDirectory, encoding,
+                                                concurrentExecutor(), reportThreads() );
+    }
+
+    private int reportThreads()
+    {
+        return reportThreads > 0 ? reportThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Returns report executor for tasks started by the calling thread, or {@code null} if the calling thread
+     * is a report executor thread. Tasks started from report tasks run on the calling thread, so the number
+     * of threads is bounded by {@code reportThreads} and report tasks never wait for tasks queued behind them.
+     */
+    private ExecutorService concurrentExecutor()
+    {
+        return onReportThread.get() ? null : reportExecutor();
+    }
+
+    /**
+     * Returns thread pool of this execution. Idle threads exit, so the pool is not shut down;
+     * it is still used by aggregated report written in background after the execution ends.
+     */
+    private synchronized ExecutorService reportExecutor()
+    {
+        if ( reportExecutor == null )
+        {
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadPoolExecutor executor =
+                new ThreadPoolExecutor( reportThreads(), reportThreads(), 10L, TimeUnit.SECONDS,
+                                        new LinkedBlockingQueue<Runnable>(), r -> {
+                                            Thread thread = new Thread( () -> {
+                                                onReportThread.set( Boolean.TRUE );
+                                                r.run();
+                                            }, "scoverage-report-" + threadCount.incrementAndGet() );
+                                            thread.setDaemon( true );
+                                            return thread;
+                                        } );
+            executor.allowCoreThreadTimeOut( true );
+            reportExecutor = executor;
+        }
+        return reportExecutor;
+    }
+
+    /**
+     * Runs tasks on report executor and waits for all of them.
+     * The first failure (in task order) is rethrown as {@link MavenReportException}.
+     */
+    private <T> List<T> invokeAll( List<? extends Callable<T>> tasks )
+        throws MavenReportException
+    {
+        return getAll( submitAll( tasks ) );
+    }
+
+    /**
+     * Submits tasks to report executor, or runs them on the calling thread if it is a report executor thread.
+     */
+    private <T> List<Future<T>> submitAll( List<? extends Callable<T>> tasks )
+    {
+        ExecutorService executor = concurrentExecutor();
+        List<Future<T>> futures = new ArrayList<Future<T>>( tasks.size() );
+        for ( Callable<T> task : tasks )
+        {
+            if ( executor != null )
+            {
+                futures.add( executor.submit( task ) );
+            }
+            else
+            {
+                FutureTask<T> future = new FutureTask<T>( task );
+                future.run();
+                futures.add( future );
+            }
+        }
+        return futures;
+    }
+
+    /**
+     * Waits for all tasks. The first failure (in task order) is rethrown as {@link MavenReportException},
+     * remaining tasks are cancelled.
+     */
+    private <T> List<T> getAll( List<Future<T>> futures )
+        throws MavenReportException
+    {
+        List<T> results = new ArrayList<T>( futures.size() );
+        try
+        {
+            for ( Future<T> future : futures )
+            {
+                results.add( future.get() );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new MavenReportException( "Interrupted while generating coverage reports", e );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            if ( cause instanceof MavenReportException reportException )
+            {
+                throw reportException;
+            }
+            if ( cause instanceof Error error )
+            {
+                throw error;
+            }
+            throw new MavenReportException( "Coverage report generation failed: " + cause.getMessage(),
+                                            (Exception) cause );
+        }
+        finally
+        {
+            for ( Future<T> future : futures )
+            {
+                future.cancel( true );
+            }
+        }
+        return results;
     }
 
     private void mkdirs( File directory )
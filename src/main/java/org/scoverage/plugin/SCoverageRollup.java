@@ -0,0 +1,295 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import scoverage.domain.CoverageMetrics;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+
+/**
+ * Statement and branch coverage counters of total, per-package and per-file levels,
+ * built in a single pass over statements.
+ * <br>
+ * <br>
+ * Coverage percentages are calculated the same way as in {@link CoverageMetrics},
+ * without building collection views over statements for every package and file.
+ */
+public final class SCoverageRollup
+{
+    /**
+     * Coverage counters of one level: total, package or file.
+     */
+    public static final class Metrics
+    {
+        private final String name;
+
+        private int statementCount;
+
+        private int invokedStatementCount;
+
+        private int branchCount;
+
+        private int invokedBranchCount;
+
+        Metrics( String name )
+        {
+            this.name = name;
+        }
+
+        void add( boolean branch, boolean invoked )
+        {
+            statementCount++;
+            if ( invoked )
+            {
+                invokedStatementCount++;
+            }
+            if ( branch )
+            {
+                branchCount++;
+                if ( invoked )
+                {
+                    invokedBranchCount++;
+                }
+            }
+        }
+
+        /**
+         * Returns package name, file name or {@code Total}.
+         *
+         * @return name of the level
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        public int getStatementCount()
+        {
+            return statementCount;
+        }
+
+        public int getInvokedStatementCount()
+        {
+            return invokedStatementCount;
+        }
+
+        public int getBranchCount()
+        {
+            return branchCount;
+        }
+
+        public int getInvokedBranchCount()
+        {
+            return invokedBranchCount;
+        }
+
+        /**
+         * Returns statement coverage percent, see {@link CoverageMetrics#statementCoveragePercent()}.
+         *
+         * @return statement coverage percent
+         */
+        public double statementCoveragePercent()
+        {
+            return statementCoverage() * 100;
+        }
+
+        /**
+         * Returns branch coverage percent, see {@link CoverageMetrics#branchCoveragePercent()}.
+         *
+         * @return branch coverage percent
+         */
+        public double branchCoveragePercent()
+        {
+            return branchCoverage() * 100;
+        }
+
+        /**
+         * Returns statement coverage, see {@link CoverageMetrics#statementCoverage()}.
+         *
+         * @return statement coverage, from 0 to 1
+         */
+        public double statementCoverage()
+        {
+            return statementCount == 0 ? 1 : invokedStatementCount / (double) statementCount;
+        }
+
+        /**
+         * Returns branch coverage, see {@link CoverageMetrics#branchCoverage()}.
+         *
+         * @return branch coverage, from 0 to 1
+         */
+        public double branchCoverage()
+        {
+            // without branches there is a single line of execution,
+            // it is covered if there is at least some statement coverage
+            if ( branchCount == 0 )
+            {
+                return statementCoverage() > 0 ? 1 : 0;
+            }
+            return invokedBranchCount / (double) branchCount;
+        }
+    }
+
+    private final Metrics total = new Metrics( "Total" );
+
+    private final Map<String, Metrics> packages = new TreeMap<String, Metrics>();
+
+    private final Map<String, Metrics> files = new TreeMap<String, Metrics>();
+
+    private SCoverageRollup()
+    {
+    }
+
+    /**
+     * Builds coverage counters of statements.
+     *
+     * @param statements statements to count
+     * @param invokedIds ids of invoked statements
+     * @return coverage counters
+     */
+    public static SCoverageRollup of( scala.collection.Iterable<Statement> statements, BitSet invokedIds )
+    {
+        SCoverageRollup rollup = new SCoverageRollup();
+        scala.collection.Iterator<Statement> it = statements.iterator();
+        while ( it.hasNext() )
+        {
+            Statement statement = it.next();
+            rollup.add( statement, invokedIds.get( statement.id() ) );
+        }
+        return rollup;
+    }
+
+    /**
+     * Builds coverage counters of statements with measurements already applied.
+     *
+     * @param statements measured statements to count
+     * @return coverage counters
+     */
+    public static SCoverageRollup of( scala.collection.Iterable<Statement> statements )
+    {
+        SCoverageRollup rollup = new SCoverageRollup();
+        scala.collection.Iterator<Statement> it = statements.iterator();
+        while ( it.hasNext() )
+        {
+            Statement statement = it.next();
+            rollup.add( statement, statement.isInvoked() );
+        }
+        return rollup;
+    }
+
+    /**
+     * Builds coverage counters of stored statements, without creating statement objects.
+     *
+     * @param store statement store
+     * @param invokedIds ids of invoked statements
+     * @return coverage counters
+     */
+    public static SCoverageRollup of( SCoverageStatementStore store, BitSet invokedIds )
+    {
+        SCoverageRollup rollup = new SCoverageRollup();
+        for ( int row = 0; row < store.size(); row++ )
+        {
+            if ( !store.isIgnored( row ) )
+            {
+                rollup.add( store.location( row ), store.isBranch( row ), invokedIds.get( store.id( row ) ) );
+            }
+        }
+        return rollup;
+    }
+
+    /**
+     * Builds coverage counters of stored statements with measurements already applied,
+     * without creating statement objects.
+     *
+     * @param store statement store
+     * @return coverage counters
+     */
+    public static SCoverageRollup of( SCoverageStatementStore store )
+    {
+        SCoverageRollup rollup = new SCoverageRollup();
+        for ( int row = 0; row < store.size(); row++ )
+        {
+            if ( !store.isIgnored( row ) )
+            {
+                rollup.add( store.location( row ), store.isBranch( row ), store.count( row ) > 0 );
+            }
+        }
+        return rollup;
+    }
+
+    private void add( Statement statement, boolean invoked )
+    {
+        add( statement.location(), statement.branch(), invoked );
+    }
+
+    private void add( Location location, boolean branch, boolean invoked )
+    {
+        total.add( branch, invoked );
+        packages.computeIfAbsent( location.packageName(), Metrics::new )
+            .add( branch, invoked );
+        files.computeIfAbsent( location.sourcePath(), source -> new Metrics( new File( source ).getName() ) )
+            .add( branch, invoked );
+    }
+
+    /**
+     * Returns total coverage counters.
+     *
+     * @return total counters
+     */
+    public Metrics total()
+    {
+        return total;
+    }
+
+    /**
+     * Returns per-package coverage counters, sorted by package name.
+     *
+     * @return package counters
+     */
+    public Collection<Metrics> packages()
+    {
+        return packages.values();
+    }
+
+    /**
+     * Returns per-file coverage counters, sorted by source path.
+     *
+     * @return file counters
+     */
+    public Collection<Metrics> files()
+    {
+        return files.values();
+    }
+
+    /**
+     * Returns per-file coverage counters by source path, sorted by source path.
+     *
+     * @return file counters by source path
+     */
+    public Map<String, Metrics> fileMetrics()
+    {
+        return Collections.unmodifiableMap( files );
+    }
+}
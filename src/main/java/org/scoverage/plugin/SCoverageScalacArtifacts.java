@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+
+/**
+ * Resolved scalac-scoverage artifacts for one Scala version, shared by all modules of the build.
+ * <br>
+ * <br>
+ * All artifacts needed for instrumentation (scalac plugin, domain, serializer and, for Scala 2, runtime)
+ * are resolved with one batched {@link RepositorySystem#resolveArtifacts} call and cached
+ * in RepositorySystemSession.getData(), like {@link SCoverageSessionCache}, keyed by scalac-scoverage version
+ * and Scala version. Modules using the same Scala version reuse resolved artifacts and the {@code -Xplugin:}
+ * classpath, without any resolver round-trip.
+ */
+public final class SCoverageScalacArtifacts
+{
+    private static final String CACHE_KEY = SCoverageScalacArtifacts.class.getName() + ".artifacts";
+
+    private static final String GROUP_ID = "org.scoverage";
+
+    private final List<Artifact> pluginArtifacts;
+
+    private final Artifact runtimeArtifact;
+
+    private final String pluginClasspath;
+
+    private SCoverageScalacArtifacts( List<Artifact> pluginArtifacts, Artifact runtimeArtifact )
+    {
+        this.pluginArtifacts = Collections.unmodifiableList( pluginArtifacts );
+        this.runtimeArtifact = runtimeArtifact;
+        this.pluginClasspath = pluginArtifacts.stream().map( a -> a.getFile().getAbsolutePath() )
+            .collect( Collectors.joining( File.pathSeparator ) );
+    }
+
+    /**
+     * Returns cached artifacts, resolving them on the first call for given versions.
+     *
+     * @param repositorySystem repository system
+     * @param repositorySession repository system session providing build-global storage
+     * @param remoteRepositories remote repositories to resolve from
+     * @param scalaVersion Scala version
+     * @param scalacPluginVersion scalac-scoverage-plugin version
+     * @return resolved artifacts
+     * @throws ArtifactResolutionException if any artifact cannot be resolved
+     */
+    public static SCoverageScalacArtifacts resolve( RepositorySystem repositorySystem,
+                                                    RepositorySystemSession repositorySession,
+                                                    List<RemoteRepository> remoteRepositories,
+                                                    ScalaVersion scalaVersion, String scalacPluginVersion )
+        throws ArtifactResolutionException
+    {
+        String key = scalacPluginVersion + '|' + scalaVersion.full;
+        Map<String, Object> cache = cache( repositorySession );
+        if ( cache.get( key ) instanceof SCoverageScalacArtifacts artifacts )
+        {
+            return artifacts;
+        }
+
+        boolean scala2 = scalaVersion.isScala2();
+        List<ArtifactRequest> requests = new ArrayList<ArtifactRequest>();
+        if ( scala2 ) // Scala 3 doesn't need scalac-scoverage-plugin
+        {
+            requests.add( request( "scalac-scoverage-plugin_" + scalaVersion.full, scalacPluginVersion,
+                                   remoteRepositories ) );
+        }
+        requests.add( request( "scalac-scoverage-domain_" + scalaVersion.compatible, scalacPluginVersion,
+                               remoteRepositories ) );
+        requests.add( request( "scalac-scoverage-serializer_" + scalaVersion.compatible, scalacPluginVersion,
+                               remoteRepositories ) );
+        if ( scala2 ) // Scala 3 doesn't need scalac-scoverage-runtime
+        {
+            requests.add( request( "scalac-scoverage-runtime_" + scalaVersion.compatible, scalacPluginVersion,
+                                   remoteRepositories ) );
+        }
+
+        List<ArtifactResult> results = repositorySystem.resolveArtifacts( repositorySession, requests );
+        List<Artifact> pluginArtifacts = new ArrayList<Artifact>();
+        for ( int i = 0; i < ( scala2 ? results.size() - 1 : results.size() ); i++ )
+        {
+            pluginArtifacts.add( results.get( i ).getArtifact() );
+        }
+        Artifact runtimeArtifact = scala2 ? results.get( results.size() - 1 ).getArtifact() : null;
+
+        SCoverageScalacArtifacts artifacts = new SCoverageScalacArtifacts( pluginArtifacts, runtimeArtifact );
+        Object previous = cache.putIfAbsent( key, artifacts );
+        return previous instanceof SCoverageScalacArtifacts resolvedConcurrently ? resolvedConcurrently : artifacts;
+    }
+
+    /**
+     * Returns artifacts of scalac plugin classpath (plugin, domain and serializer).
+     *
+     * @return plugin artifacts
+     */
+    public List<Artifact> getPluginArtifacts()
+    {
+        return pluginArtifacts;
+    }
+
+    /**
+     * Returns scalac-scoverage-runtime artifact.
+     *
+     * @return runtime artifact, {@code null} for Scala 3
+     */
+    public Artifact getRuntimeArtifact()
+    {
+        return runtimeArtifact;
+    }
+
+    /**
+     * Returns scalac plugin classpath, the value of {@code -Xplugin:} option.
+     *
+     * @return plugin artifact paths separated with path separator
+     */
+    public String getPluginClasspath()
+    {
+        return pluginClasspath;
+    }
+
+    private static ArtifactRequest request( String artifactId, String version, List<RemoteRepository> repositories )
+    {
+        ArtifactRequest request = new ArtifactRequest();
+        request.setArtifact( new DefaultArtifact( GROUP_ID, artifactId, "jar", version ) );
+        request.setRepositories( repositories );
+        return request;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static Map<String, Object> cache( RepositorySystemSession repositorySession )
+    {
+        SessionData sessionData = repositorySession.getData();
+
+        // Same backward-compatible initialization as in SCoverageAggregationCoordinator
+        synchronized ( sessionData )
+        {
+            Map<String, Object> cache = (Map<String, Object>) sessionData.get( CACHE_KEY );
+            if ( cache == null )
+            {
+                cache = new ConcurrentHashMap<String, Object>();
+                sessionData.set( CACHE_KEY, cache );
+            }
+            return cache;
+        }
+    }
+}
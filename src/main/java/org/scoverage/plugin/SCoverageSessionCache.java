@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+import scoverage.domain.Coverage;
+import scoverage.serialize.Serializer;
+
+/**
+ * Build-global cache of measured module coverage rollups, shared by report and check goals.
+ * <br>
+ * <br>
+ * Only compact total, package and file counters are cached, not statement objects, so modules' coverage
+ * is not kept in memory until the end of the build.
+ * <br>
+ * <br>
+ * Uses RepositorySystemSession.getData() as build-global storage, like {@link SCoverageAggregationCoordinator}.
+ * Cached values are plugin classes, so they are returned only if they were stored by the same plugin classloader,
+ * otherwise cache lookup is a miss.
+ * <br>
+ * <br>
+ * Cache keys contain data directory, source root and fingerprint (names, sizes and modification times)
+ * of instrumentation data and measurement files, so cached rollup is not used after data files change.
+ */
+public final class SCoverageSessionCache
+{
+    private static final String CACHE_KEY = SCoverageSessionCache.class.getName() + ".coverage";
+
+    private SCoverageSessionCache()
+    {
+    }
+
+    /**
+     * Creates cache key of module's current coverage data.
+     *
+     * @param dataDirectory module's scoverage data directory
+     * @param sourceRoot root directory source paths are resolved against
+     * @return cache key
+     */
+    public static String key( File dataDirectory, File sourceRoot )
+    {
+        StringBuilder key = new StringBuilder();
+        key.append( dataDirectory.getAbsolutePath() ).append( '|' ).append( sourceRoot.getAbsolutePath() );
+        appendFingerprint( key, Serializer.coverageFile( dataDirectory ) );
+
+        File[] measurementFiles = SCoverageMeasurements.findMeasurementFiles( dataDirectory );
+        Arrays.sort( measurementFiles, Comparator.comparing( File::getName ) );
+        for ( File measurementFile : measurementFiles )
+        {
+            appendFingerprint( key, measurementFile );
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns cached rollup of measured coverage.
+     *
+     * @param repositorySession repository system session providing build-global storage
+     * @param key cache key
+     * @return cached rollup or {@code null}
+     */
+    public static SCoverageRollup get( RepositorySystemSession repositorySession, String key )
+    {
+        Object value = cache( repositorySession ).get( key );
+        return value instanceof SCoverageRollup rollup ? rollup : null;
+    }
+
+    /**
+     * Stores rollup of measured coverage in cache.
+     *
+     * @param repositorySession repository system session providing build-global storage
+     * @param key cache key created before coverage data was read
+     * @param coverage measured coverage
+     */
+    public static void put( RepositorySystemSession repositorySession, String key, Coverage coverage )
+    {
+        cache( repositorySession ).put( key, SCoverageRollup.of( coverage.statements() ) );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static Map<String, Object> cache( RepositorySystemSession repositorySession )
+    {
+        SessionData sessionData = repositorySession.getData();
+
+        // Same backward-compatible initialization as in SCoverageAggregationCoordinator
+        synchronized ( sessionData )
+        {
+            Map<String, Object> cache = (Map<String, Object>) sessionData.get( CACHE_KEY );
+            if ( cache == null )
+            {
+                cache = new ConcurrentHashMap<String, Object>();
+                sessionData.set( CACHE_KEY, cache );
+            }
+            return cache;
+        }
+    }
+
+    private static void appendFingerprint( StringBuilder key, File file )
+    {
+        key.append( '|' ).append( file.getName() )
+            .append( ':' ).append( file.length() )
+            .append( ':' ).append( file.lastModified() );
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+
+import scoverage.serialize.Serializer;
+
+/**
+ * Snapshot of module's measurements.
+ * <br>
+ * <br>
+ * Snapshot is the union of all module's measurement files, deduplicated (statement id, test name) pairs
+ * stored in {@link SCoverageInvocations} binary format in the module's data directory: a bit set
+ * of statement ids and a test name dictionary, so per-test data is kept. Instrumentation data
+ * is not part of the snapshot, it is read from {@link SCoverageInstrumentationCache}.
+ * Snapshot is keyed by a fingerprint: content hash of the instrumentation data file and all measurement files.
+ * When the fingerprint still matches, the snapshot can be read instead of parsing all measurement files again.
+ */
+public final class SCoverageSnapshot
+{
+    private static final String SNAPSHOT_FILE_NAME = "scoverage.snapshot.bin";
+
+    private static final String FINGERPRINT_FILE_NAME = "scoverage.snapshot.fingerprint";
+
+    private SCoverageSnapshot()
+    {
+    }
+
+    /**
+     * Calculates fingerprint of module's coverage data.
+     *
+     * @param dataDirectory module's scoverage data directory
+     * @param encoding measurement files encoding
+     * @return hexadecimal content hash of instrumentation data and measurement files
+     * @throws IOException if data files cannot be read
+     */
+    public static String fingerprint( File dataDirectory, String encoding )
+        throws IOException
+    {
+        MessageDigest digest = newDigest();
+        digest.update( ( encoding + "\n" ).getBytes( StandardCharsets.UTF_8 ) );
+        update( digest, Serializer.coverageFile( dataDirectory ) );
+
+        File[] measurementFiles = SCoverageMeasurements.findMeasurementFiles( dataDirectory );
+        Arrays.sort( measurementFiles, Comparator.comparing( File::getName ) );
+        for ( File measurementFile : measurementFiles )
+        {
+            digest.update( ( '\n' + measurementFile.getName() + '\n' ).getBytes( StandardCharsets.UTF_8 ) );
+            update( digest, measurementFile );
+        }
+        return HexFormat.of().formatHex( digest.digest() );
+    }
+
+    /**
+     * Reads module's snapshot if it matches the fingerprint.
+     *
+     * @param dataDirectory module's scoverage data directory
+     * @param fingerprint current fingerprint of module's coverage data
+     * @return measured invocations or {@code null} if there is no matching snapshot
+     * @throws IOException if snapshot files cannot be read
+     */
+    public static SCoverageInvocations read( File dataDirectory, String fingerprint )
+        throws IOException
+    {
+        File fingerprintFile = new File( dataDirectory, FINGERPRINT_FILE_NAME );
+        File snapshotFile = new File( dataDirectory, SNAPSHOT_FILE_NAME );
+        if ( !fingerprintFile.isFile() || !snapshotFile.isFile() )
+        {
+            return null;
+        }
+
+        String snapshotFingerprint = Files.readString( fingerprintFile.toPath(), StandardCharsets.UTF_8 ).trim();
+        if ( !snapshotFingerprint.equals( fingerprint ) )
+        {
+            return null;
+        }
+        SCoverageInvocations invocations = new SCoverageInvocations();
+        invocations.readBinary( snapshotFile );
+        return invocations;
+    }
+
+    /**
+     * Writes module's snapshot.
+     *
+     * @param invocations measured invocations, with test names
+     * @param dataDirectory module's scoverage data directory
+     * @param fingerprint fingerprint of coverage data the invocations were loaded from
+     * @throws IOException if snapshot files cannot be written
+     */
+    public static void write( SCoverageInvocations invocations, File dataDirectory, String fingerprint )
+        throws IOException
+    {
+        File fingerprintFile = new File( dataDirectory, FINGERPRINT_FILE_NAME );
+        File snapshotFile = new File( dataDirectory, SNAPSHOT_FILE_NAME );
+
+        // Invalidate old snapshot first, fingerprint is written only after complete snapshot.
+        // Unique temporary files, concurrent builds using the same data directory do not write into the same file.
+        Files.deleteIfExists( fingerprintFile.toPath() );
+        Path tmpSnapshotFile = Files.createTempFile( dataDirectory.toPath(), SNAPSHOT_FILE_NAME, ".tmp" );
+        Path tmpFingerprintFile = Files.createTempFile( dataDirectory.toPath(), FINGERPRINT_FILE_NAME, ".tmp" );
+        try
+        {
+            invocations.writeBinary( tmpSnapshotFile.toFile() );
+            Files.move( tmpSnapshotFile, snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+            Files.writeString( tmpFingerprintFile, fingerprint, StandardCharsets.UTF_8 );
+            Files.move( tmpFingerprintFile, fingerprintFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        }
+        finally
+        {
+            Files.deleteIfExists( tmpSnapshotFile );
+            Files.deleteIfExists( tmpFingerprintFile );
+        }
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-256" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            // every Java platform implementation is required to support SHA-256
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static void update( MessageDigest digest, File file )
+        throws IOException
+    {
+        byte[] buffer = new byte[ 64 * 1024 ];
+        try ( InputStream in = new FileInputStream( file ) )
+        {
+            int n = in.read( buffer );
+            while ( n >= 0 )
+            {
+                digest.update( buffer, 0, n );
+                n = in.read( buffer );
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Statement;
+
+/**
+ * Index of source files of measured coverage by path relative to their source root.
+ * <br>
+ * <br>
+ * Built once per report. Source root of every source file is found by looking up its parent directories
+ * in a map of canonical source root paths, instead of scanning all source roots.
+ * If a source file is under more than one (nested) source root, the first one in source roots order is used,
+ * the same way as in report writers.
+ * <br>
+ * <br>
+ * Index detects ambiguous relative paths (different source files under different source roots
+ * with the same relative path, their report pages would overwrite each other)
+ * and source files not found under any source root.
+ */
+public final class SCoverageSourceIndex
+{
+    private final List<File> sourceRoots;
+
+    private final List<File> usedSourceRoots;
+
+    private final Map<String, String> relativePaths;
+
+    private final Map<String, List<String>> ambiguousPaths;
+
+    private final List<String> unresolvedSources;
+
+    private SCoverageSourceIndex( List<File> sourceRoots, List<File> usedSourceRoots,
+                                  Map<String, String> relativePaths, Map<String, List<String>> ambiguousPaths,
+                                  List<String> unresolvedSources )
+    {
+        this.sourceRoots = sourceRoots;
+        this.usedSourceRoots = usedSourceRoots;
+        this.relativePaths = relativePaths;
+        this.ambiguousPaths = ambiguousPaths;
+        this.unresolvedSources = unresolvedSources;
+    }
+
+    /**
+     * Builds index of coverage source files.
+     *
+     * @param sourceRoots source roots, in lookup order, may contain duplicates and non-existing directories
+     * @param coverage measured coverage
+     * @return source index
+     * @throws IOException if canonical path of a source root cannot be resolved
+     */
+    public static SCoverageSourceIndex build( List<File> sourceRoots, Coverage coverage )
+        throws IOException
+    {
+        List<File> roots = new ArrayList<File>();
+        Map<String, Integer> rootIndexes = new HashMap<String, Integer>();
+        for ( File sourceRoot : sourceRoots )
+        {
+            if ( sourceRoot.isDirectory() )
+            {
+                String canonicalPath = sourceRoot.getCanonicalPath();
+                if ( !rootIndexes.containsKey( canonicalPath ) )
+                {
+                    rootIndexes.put( canonicalPath, roots.size() );
+                    roots.add( sourceRoot );
+                }
+            }
+        }
+
+        BitSet usedRoots = new BitSet();
+        Map<String, String> relativePaths = new HashMap<String, String>();
+        Map<String, String> sourcesByRelativePath = new HashMap<String, String>();
+        Map<String, List<String>> ambiguousPaths = new TreeMap<String, List<String>>();
+        Set<String> unresolvedSources = new LinkedHashSet<String>();
+
+        scala.collection.Iterator<Statement> it = coverage.statements().iterator();
+        while ( it.hasNext() )
+        {
+            String source = it.next().source();
+            if ( source == null || relativePaths.containsKey( source ) || unresolvedSources.contains( source ) )
+            {
+                continue;
+            }
+
+            int rootIndex = -1;
+            String rootPath = null;
+            File parent = new File( source ).getParentFile();
+            while ( parent != null )
+            {
+                Integer index = rootIndexes.get( parent.getPath() );
+                if ( index != null && ( rootIndex < 0 || index < rootIndex ) )
+                {
+                    rootIndex = index;
+                    rootPath = parent.getPath();
+                }
+                parent = parent.getParentFile();
+            }
+            if ( rootIndex < 0 )
+            {
+                unresolvedSources.add( source );
+                continue;
+            }
+
+            usedRoots.set( rootIndex );
+            int prefixLength = rootPath.endsWith( File.separator ) ? rootPath.length() : rootPath.length() + 1;
+            String relativePath = source.substring( prefixLength ).replace( File.separatorChar, '/' );
+            relativePaths.put( source, relativePath );
+            String otherSource = sourcesByRelativePath.putIfAbsent( relativePath, source );
+            if ( otherSource != null && !otherSource.equals( source ) )
+            {
+                List<String> sources = ambiguousPaths.computeIfAbsent( relativePath, k -> {
+                    List<String> list = new ArrayList<String>();
+                    list.add( otherSource );
+                    return list;
+                } );
+                sources.add( source );
+            }
+        }
+
+        List<File> usedSourceRoots = new ArrayList<File>();
+        for ( int i = usedRoots.nextSetBit( 0 ); i >= 0; i = usedRoots.nextSetBit( i + 1 ) )
+        {
+            usedSourceRoots.add( roots.get( i ) );
+        }
+        return new SCoverageSourceIndex( new ArrayList<File>( sourceRoots ), usedSourceRoots, relativePaths,
+                                         ambiguousPaths, new ArrayList<String>( unresolvedSources ) );
+    }
+
+    /**
+     * Returns all source roots the index was built from, in source roots order.
+     *
+     * @return source roots
+     */
+    public List<File> sourceRoots()
+    {
+        return sourceRoots;
+    }
+
+    /**
+     * Returns source roots containing at least one coverage source file, in source roots order, without duplicates.
+     * Report writers given only these source roots resolve all source files the same way as with all source roots.
+     *
+     * @return used source roots
+     */
+    public List<File> usedSourceRoots()
+    {
+        return usedSourceRoots;
+    }
+
+    /**
+     * Returns source file path relative to its source root, with '/' separators.
+     *
+     * @param source canonical source file path
+     * @return relative path or {@code null} if source file is not under any source root
+     */
+    public String relativePath( String source )
+    {
+        return relativePaths.get( source );
+    }
+
+    /**
+     * Returns relative paths shared by different source files.
+     *
+     * @return source file paths by ambiguous relative path
+     */
+    public Map<String, List<String>> ambiguousPaths()
+    {
+        return ambiguousPaths;
+    }
+
+    /**
+     * Returns source files not found under any source root.
+     *
+     * @return unresolved source file paths
+     */
+    public List<String> unresolvedSources()
+    {
+        return unresolvedSources;
+    }
+}
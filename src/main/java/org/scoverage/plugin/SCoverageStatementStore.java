@@ -0,0 +1,568 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import scala.Tuple2;
+import scala.jdk.javaapi.CollectionConverters;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+
+/**
+ * Read-only coverage of multiple modules stored in compact columnar form.
+ * <br>
+ * <br>
+ * Statement fields are stored in primitive int columns, string fields (description, symbol and tree name)
+ * as indexes into a string dictionary and locations as indexes into a table of distinct locations.
+ * Test names are stored once in a test dictionary, statements invoked by named tests keep
+ * a {@link SCoverageTestBitmap} of test ids in a table keyed by row. Statement objects are not kept, they are created
+ * on demand when statements are iterated and can be garbage collected right after use.
+ * <br>
+ * <br>
+ * Columns are allocated in chunks of {@value #CHUNK_ROWS} statements. Chunks of the first
+ * {@code spillThreshold} statements are allocated on the heap, next chunks are memory-mapped
+ * from a temporary file, so coverage of huge reactors does not have to fit into the heap.
+ * The temporary file is deleted when the store is closed.
+ * <br>
+ * <br>
+ * Like {@link SCoverageAggregatedCoverage}, every added module is assigned a range of statement ids
+ * starting at its id offset. Not thread-safe while modules are added, safe for concurrent reading after that.
+ */
+public final class SCoverageStatementStore
+    extends Coverage
+    implements Closeable
+{
+    static final int CHUNK_ROWS = 1 << 16;
+
+    private static final int LOCATION = 0;
+
+    private static final int ID = 1;
+
+    private static final int START = 2;
+
+    private static final int END = 3;
+
+    private static final int LINE = 4;
+
+    private static final int DESC = 5;
+
+    private static final int SYMBOL_NAME = 6;
+
+    private static final int TREE_NAME = 7;
+
+    private static final int COUNT = 8;
+
+    private static final int FLAGS = 9;
+
+    private static final int COLUMNS = 10;
+
+    private static final int BRANCH_FLAG = 1;
+
+    private static final int IGNORED_FLAG = 2;
+
+    private static final int NULL_INDEX = -1;
+
+    private static final long CHUNK_BYTES = (long) COLUMNS * CHUNK_ROWS * Integer.BYTES;
+
+    private final long spillThreshold;
+
+    private final File spillDirectory;
+
+    private final List<IntBuffer> chunks = new ArrayList<IntBuffer>();
+
+    private final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+
+    private final List<String> strings = new ArrayList<String>();
+
+    private final Map<List<Object>, Integer> locationIndexes = new HashMap<List<Object>, Integer>();
+
+    private final List<Location> locations = new ArrayList<Location>();
+
+    private final SCoverageTestBitmaps rowTests = new SCoverageTestBitmaps();
+
+    private final Map<String, Integer> testIds = new HashMap<String, Integer>();
+
+    private final List<String> testNames = new ArrayList<String>();
+
+    private File spillFile;
+
+    private FileChannel spillChannel;
+
+    private int spilledChunks;
+
+    private int size;
+
+    private int statementCount;
+
+    private int invokedStatementCount;
+
+    private int branchCount;
+
+    private int invokedBranchCount;
+
+    private int nextIdOffset;
+
+    /**
+     * Creates empty store.
+     *
+     * @param spillThreshold number of statements stored on the heap, next statements are stored
+     *                       in a memory-mapped temporary file
+     * @param spillDirectory directory of the temporary file, default temporary directory if {@code null}
+     */
+    public SCoverageStatementStore( long spillThreshold, File spillDirectory )
+    {
+        this.spillThreshold = spillThreshold;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Adds measured coverage of the next module to this store.
+     *
+     * @param moduleCoverage measured coverage of the module
+     * @return id offset assigned to the module
+     * @throws IOException if statements cannot be stored in the temporary file
+     */
+    public int addModule( Coverage moduleCoverage )
+        throws IOException
+    {
+        int idOffset = nextIdOffset;
+        int maxId = -1;
+        for ( scala.collection.Iterable<Statement> statements : Arrays.asList( moduleCoverage.statements(),
+                                                                               moduleCoverage.ignoredStatements() ) )
+        {
+            scala.collection.Iterator<Statement> it = statements.iterator();
+            while ( it.hasNext() )
+            {
+                Statement s = it.next();
+                int row = size;
+                append( s.location(), idOffset + s.id(), s.start(), s.end(), s.line(), s.desc(), s.symbolName(),
+                        s.treeName(), s.branch(), s.count(), s.ignored() );
+                if ( !s.tests().isEmpty() )
+                {
+                    SCoverageTestBitmap tests = rowTests.getOrAdd( row );
+                    scala.collection.Iterator<String> testIt = s.tests().iterator();
+                    while ( testIt.hasNext() )
+                    {
+                        tests.add( testId( testIt.next() ) );
+                    }
+                }
+                maxId = Math.max( maxId, s.id() );
+            }
+        }
+        nextIdOffset = idOffset + maxId + 1;
+        return idOffset;
+    }
+
+    /**
+     * Appends one statement.
+     */
+    void append( Location location, int id, int start, int end, int line, String desc, String symbolName,
+                 String treeName, boolean branch, int count, boolean ignored )
+        throws IOException
+    {
+        int row = size;
+        if ( row == chunks.size() * CHUNK_ROWS )
+        {
+            chunks.add( newChunk() );
+        }
+        set( row, LOCATION, locationIndex( location ) );
+        set( row, ID, id );
+        set( row, START, start );
+        set( row, END, end );
+        set( row, LINE, line );
+        set( row, DESC, stringIndex( desc ) );
+        set( row, SYMBOL_NAME, stringIndex( symbolName ) );
+        set( row, TREE_NAME, stringIndex( treeName ) );
+        set( row, COUNT, count );
+        set( row, FLAGS, ( branch ? BRANCH_FLAG : 0 ) | ( ignored ? IGNORED_FLAG : 0 ) );
+        size++;
+
+        if ( !ignored )
+        {
+            statementCount++;
+            if ( count > 0 )
+            {
+                invokedStatementCount++;
+            }
+            if ( branch )
+            {
+                branchCount++;
+                if ( count > 0 )
+                {
+                    invokedBranchCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of stored statements, including ignored statements.
+     *
+     * @return number of rows
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Checks if any statements are stored in the memory-mapped temporary file.
+     *
+     * @return true if statements were spilled
+     */
+    public boolean isSpilled()
+    {
+        return spilledChunks > 0;
+    }
+
+    /**
+     * Returns distinct locations of stored statements.
+     *
+     * @return locations, indexed by location index
+     */
+    public List<Location> locations()
+    {
+        return Collections.unmodifiableList( locations );
+    }
+
+    /**
+     * Returns location index of a statement.
+     *
+     * @param row statement row
+     * @return index into {@link #locations()}
+     */
+    public int locationIndex( int row )
+    {
+        return get( row, LOCATION );
+    }
+
+    /**
+     * Returns location of a statement.
+     *
+     * @param row statement row
+     * @return statement location
+     */
+    public Location location( int row )
+    {
+        return locations.get( get( row, LOCATION ) );
+    }
+
+    /**
+     * Returns aggregated id of a statement.
+     *
+     * @param row statement row
+     * @return statement id
+     */
+    public int id( int row )
+    {
+        return get( row, ID );
+    }
+
+    /**
+     * Returns line of a statement.
+     *
+     * @param row statement row
+     * @return statement line
+     */
+    public int line( int row )
+    {
+        return get( row, LINE );
+    }
+
+    /**
+     * Returns invocation count of a statement.
+     *
+     * @param row statement row
+     * @return invocation count
+     */
+    public int count( int row )
+    {
+        return get( row, COUNT );
+    }
+
+    /**
+     * Checks if a statement is a branch.
+     *
+     * @param row statement row
+     * @return true if statement is a branch
+     */
+    public boolean isBranch( int row )
+    {
+        return ( get( row, FLAGS ) & BRANCH_FLAG ) != 0;
+    }
+
+    /**
+     * Checks if a statement is ignored.
+     *
+     * @param row statement row
+     * @return true if statement is ignored
+     */
+    public boolean isIgnored( int row )
+    {
+        return ( get( row, FLAGS ) & IGNORED_FLAG ) != 0;
+    }
+
+    /**
+     * Creates statement object of a row. Equal locations and strings are shared by all created statements.
+     *
+     * @param row statement row
+     * @return new statement
+     */
+    public Statement statement( int row )
+    {
+        int flags = get( row, FLAGS );
+        scala.collection.mutable.HashSet<String> tests = new scala.collection.mutable.HashSet<String>();
+        SCoverageTestBitmap testBitmap = rowTests.get( row );
+        if ( testBitmap != null )
+        {
+            testBitmap.forEach( testId -> tests.add( testNames.get( testId ) ) );
+        }
+        return new Statement( location( row ), get( row, ID ), get( row, START ), get( row, END ), get( row, LINE ),
+                              string( get( row, DESC ) ), string( get( row, SYMBOL_NAME ) ),
+                              string( get( row, TREE_NAME ) ), ( flags & BRANCH_FLAG ) != 0, get( row, COUNT ),
+                              ( flags & IGNORED_FLAG ) != 0, tests );
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public scala.collection.Iterable<Statement> statements()
+    {
+        return CollectionConverters.asScala( rows( false ) );
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public scala.collection.Iterable<Statement> ignoredStatements()
+    {
+        return CollectionConverters.asScala( rows( true ) );
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int statementCount()
+    {
+        return statementCount;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int ignoredStatementCount()
+    {
+        return size - statementCount;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int invokedStatementCount()
+    {
+        return invokedStatementCount;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int branchCount()
+    {
+        return branchCount;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int invokedBranchesCount()
+    {
+        return invokedBranchCount;
+    }
+
+    /**
+     * Not supported, statements are added with their modules.
+     */
+    @Override
+    public void add( Statement stmt )
+    {
+        throw new UnsupportedOperationException( "Statements can be added only with their modules" );
+    }
+
+    /**
+     * Not supported, statements are added with their modules.
+     */
+    @Override
+    public void addIgnoredStatement( Statement stmt )
+    {
+        throw new UnsupportedOperationException( "Statements can be added only with their modules" );
+    }
+
+    /**
+     * Not supported, modules are added with measurements already applied.
+     */
+    @Override
+    public void invoked( Tuple2<Object, String> id )
+    {
+        throw new UnsupportedOperationException( "Measurements must be applied before modules are added" );
+    }
+
+    /**
+     * Releases the memory-mapped temporary file.
+     *
+     * @throws IOException if temporary file cannot be closed
+     */
+    @Override
+    public void close()
+        throws IOException
+    {
+        if ( spillChannel != null )
+        {
+            spillChannel.close();
+            spillChannel = null;
+            // mapped chunks stay valid until garbage collected, on some platforms the file cannot be deleted before
+            if ( !spillFile.delete() )
+            {
+                spillFile.deleteOnExit();
+            }
+        }
+    }
+
+    private IntBuffer newChunk()
+        throws IOException
+    {
+        if ( (long) chunks.size() * CHUNK_ROWS < spillThreshold )
+        {
+            return IntBuffer.allocate( COLUMNS * CHUNK_ROWS );
+        }
+        if ( spillChannel == null )
+        {
+            spillFile = File.createTempFile( "scoverage-statements", ".bin", spillDirectory );
+            spillChannel = FileChannel.open( spillFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE );
+        }
+        IntBuffer chunk =
+            spillChannel.map( FileChannel.MapMode.READ_WRITE, spilledChunks * CHUNK_BYTES, CHUNK_BYTES ).asIntBuffer();
+        spilledChunks++;
+        return chunk;
+    }
+
+    private int get( int row, int column )
+    {
+        if ( row < 0 || row >= size )
+        {
+            throw new IndexOutOfBoundsException( String.format( "Row %d out of %d", row, size ) );
+        }
+        return chunks.get( row / CHUNK_ROWS ).get( column * CHUNK_ROWS + row % CHUNK_ROWS );
+    }
+
+    private void set( int row, int column, int value )
+    {
+        chunks.get( row / CHUNK_ROWS ).put( column * CHUNK_ROWS + row % CHUNK_ROWS, value );
+    }
+
+    private int stringIndex( String value )
+    {
+        if ( value == null )
+        {
+            return NULL_INDEX;
+        }
+        Integer index = stringIndexes.get( value );
+        if ( index == null )
+        {
+            index = strings.size();
+            stringIndexes.put( value, index );
+            strings.add( value );
+        }
+        return index;
+    }
+
+    private String string( int index )
+    {
+        return index == NULL_INDEX ? null : strings.get( index );
+    }
+
+    private int testId( String test )
+    {
+        Integer testId = testIds.get( test );
+        if ( testId == null )
+        {
+            testId = testNames.size();
+            testIds.put( test, testId );
+            testNames.add( test );
+        }
+        return testId;
+    }
+
+    private int locationIndex( Location location )
+    {
+        List<Object> key = Arrays.asList( location.packageName(), location.className(), location.fullClassName(),
+                                          location.classType(), location.method(), location.sourcePath() );
+        Integer index = locationIndexes.get( key );
+        if ( index == null )
+        {
+            index = locations.size();
+            locationIndexes.put( key, index );
+            locations.add( location );
+        }
+        return index;
+    }
+
+    private Iterable<Statement> rows( boolean ignored )
+    {
+        return () -> new Iterator<Statement>()
+        {
+            private int row = nextRow( 0 );
+
+            @Override
+            public boolean hasNext()
+            {
+                return row < size;
+            }
+
+            @Override
+            public Statement next()
+            {
+                if ( !hasNext() )
+                {
+                    throw new NoSuchElementException();
+                }
+                Statement statement = statement( row );
+                row = nextRow( row + 1 );
+                return statement;
+            }
+
+            private int nextRow( int from )
+            {
+                int next = from;
+                while ( next < size && isIgnored( next ) != ignored )
+                {
+                    next++;
+                }
+                return next;
+            }
+        };
+    }
+}
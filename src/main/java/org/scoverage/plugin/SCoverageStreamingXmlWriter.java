@@ -0,0 +1,365 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+
+/**
+ * Base class of XML report writers streaming report elements directly to the output file.
+ * <br>
+ * <br>
+ * Statements are sorted by package, class and method, so every package, class and method
+ * is a contiguous range of statements. Coverage counters of a range are calculated
+ * just before its element is written. Only the sorted statement array is held in memory,
+ * never the XML document.
+ */
+public abstract class SCoverageStreamingXmlWriter
+{
+    private static final Comparator<Statement> STATEMENT_ORDER =
+        Comparator.comparing( ( Statement s ) -> s.location().packageName() )
+            .thenComparing( s -> s.location().fullClassName() )
+            .thenComparing( s -> String.valueOf( s.location().method() ) )
+            .thenComparingInt( Statement::line )
+            .thenComparingInt( Statement::id );
+
+    /**
+     * Groups statements by package.
+     */
+    protected static final Function<Statement, String> PACKAGE = s -> s.location().packageName();
+
+    /**
+     * Groups statements by class.
+     */
+    protected static final Function<Statement, String> CLASS = s -> s.location().fullClassName();
+
+    /**
+     * Groups statements by method.
+     */
+    protected static final Function<Statement, String> METHOD = s -> String.valueOf( s.location().method() );
+
+    /**
+     * Index of coverage source files.
+     */
+    protected final SCoverageSourceIndex sourceIndex;
+
+    private final File outputFile;
+
+    private final String encoding;
+
+    /**
+     * Creates XML report writer.
+     *
+     * @param sourceIndex index of coverage source files
+     * @param outputFile report file
+     * @param encoding report file encoding, platform default if {@code null}
+     */
+    protected SCoverageStreamingXmlWriter( SCoverageSourceIndex sourceIndex, File outputFile, String encoding )
+    {
+        this.sourceIndex = sourceIndex;
+        this.outputFile = outputFile;
+        this.encoding = encoding;
+    }
+
+    /**
+     * Writes XML report.
+     *
+     * @param coverage measured coverage
+     * @throws IOException if report cannot be written
+     */
+    public void write( Coverage coverage )
+        throws IOException
+    {
+        SortedStatements statements = coverage instanceof SCoverageStatementStore store
+            ? new StoreStatements( store ) : new ArrayStatements( coverage );
+
+        Charset charset = encoding != null ? Charset.forName( encoding ) : Charset.defaultCharset();
+        try ( Writer out = Files.newBufferedWriter( outputFile.toPath(), charset ) )
+        {
+            XMLStreamWriter xml = XMLOutputFactory.newFactory().createXMLStreamWriter( out );
+            writeDocument( xml, statements, metrics( statements, 0, statements.size() ) );
+            xml.writeCharacters( "\n" );
+            xml.flush();
+            xml.close();
+        }
+        catch ( XMLStreamException e )
+        {
+            throw new IOException( String.format( "Cannot write XML report [%s]", outputFile.getAbsolutePath() ), e );
+        }
+    }
+
+    /**
+     * Writes XML document.
+     *
+     * @param xml XML output
+     * @param statements all statements, sorted by package, class and method
+     * @param total coverage counters of all statements
+     * @throws XMLStreamException if document cannot be written
+     */
+    protected abstract void writeDocument( XMLStreamWriter xml, SortedStatements statements, SCoverageRollup.Metrics total )
+        throws XMLStreamException;
+
+    /**
+     * Returns end (exclusive) of the group of statements starting at {@code from}.
+     *
+     * @param statements sorted statements
+     * @param from group start
+     * @param to range end (exclusive)
+     * @param key grouping key
+     * @return group end (exclusive)
+     */
+    protected static int groupEnd( SortedStatements statements, int from, int to, Function<Statement, String> key )
+    {
+        String groupKey = key.apply( statements.get( from ) );
+        int end = from + 1;
+        while ( end < to && groupKey.equals( key.apply( statements.get( end ) ) ) )
+        {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Calculates coverage counters of a range of statements.
+     *
+     * @param statements statements
+     * @param from range start
+     * @param to range end (exclusive)
+     * @return coverage counters
+     */
+    protected static SCoverageRollup.Metrics metrics( SortedStatements statements, int from, int to )
+    {
+        SCoverageRollup.Metrics metrics = new SCoverageRollup.Metrics( "" );
+        for ( int i = from; i < to; i++ )
+        {
+            Statement statement = statements.get( i );
+            metrics.add( statement.branch(), statement.isInvoked() );
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns class source file path relative to its source root.
+     *
+     * @param source class source file path
+     * @return relative path, or source path if it is not under any source root
+     */
+    protected String relativeSource( String source )
+    {
+        String relativePath = sourceIndex.relativePath( source );
+        return relativePath != null ? relativePath.replace( '/', File.separatorChar ) : source;
+    }
+
+    /**
+     * Starts element on a new line.
+     *
+     * @param xml XML output
+     * @param depth element depth
+     * @param name element name
+     * @throws XMLStreamException if element cannot be written
+     */
+    protected static void startElement( XMLStreamWriter xml, int depth, String name )
+        throws XMLStreamException
+    {
+        indent( xml, depth );
+        xml.writeStartElement( name );
+    }
+
+    /**
+     * Writes empty element on a new line.
+     *
+     * @param xml XML output
+     * @param depth element depth
+     * @param name element name
+     * @throws XMLStreamException if element cannot be written
+     */
+    protected static void emptyElement( XMLStreamWriter xml, int depth, String name )
+        throws XMLStreamException
+    {
+        indent( xml, depth );
+        xml.writeEmptyElement( name );
+    }
+
+    /**
+     * Ends element on a new line.
+     *
+     * @param xml XML output
+     * @param depth element depth
+     * @throws XMLStreamException if element cannot be written
+     */
+    protected static void endElement( XMLStreamWriter xml, int depth )
+        throws XMLStreamException
+    {
+        indent( xml, depth );
+        xml.writeEndElement();
+    }
+
+    private static void indent( XMLStreamWriter xml, int depth )
+        throws XMLStreamException
+    {
+        xml.writeCharacters( "\n" + " ".repeat( depth * 4 ) );
+    }
+
+    /**
+     * Statements in report order.
+     */
+    protected abstract static class SortedStatements
+    {
+        /**
+         * Returns the number of statements.
+         *
+         * @return number of statements
+         */
+        public abstract int size();
+
+        /**
+         * Returns statement at a position in report order.
+         *
+         * @param index position
+         * @return statement
+         */
+        public abstract Statement get( int index );
+    }
+
+    private static final class ArrayStatements
+        extends SortedStatements
+    {
+        private final Statement[] statements;
+
+        ArrayStatements( Coverage coverage )
+        {
+            List<Statement> statementList = new ArrayList<Statement>();
+            scala.collection.Iterator<Statement> it = coverage.statements().iterator();
+            while ( it.hasNext() )
+            {
+                statementList.add( it.next() );
+            }
+            statements = statementList.toArray( new Statement[ 0 ] );
+            Arrays.sort( statements, STATEMENT_ORDER );
+        }
+
+        @Override
+        public int size()
+        {
+            return statements.length;
+        }
+
+        @Override
+        public Statement get( int index )
+        {
+            return statements[ index ];
+        }
+    }
+
+    /**
+     * Rows of statement store, sorted by rank of their location (by package, class and method)
+     * and then by line and id, the same order as {@link #STATEMENT_ORDER}.
+     */
+    private static final class StoreStatements
+        extends SortedStatements
+    {
+        private final SCoverageStatementStore store;
+
+        private final int[] rows;
+
+        StoreStatements( SCoverageStatementStore store )
+        {
+            this.store = store;
+
+            List<Location> locations = store.locations();
+            Integer[] locationOrder = new Integer[ locations.size() ];
+            for ( int i = 0; i < locationOrder.length; i++ )
+            {
+                locationOrder[ i ] = i;
+            }
+            Comparator<Location> locationComparator = Comparator.comparing( Location::packageName )
+                .thenComparing( Location::fullClassName ).thenComparing( l -> String.valueOf( l.method() ) );
+            Arrays.sort( locationOrder, ( a, b ) -> locationComparator.compare( locations.get( a ),
+                                                                                locations.get( b ) ) );
+            int[] locationRanks = new int[ locationOrder.length ];
+            for ( int i = 0; i < locationOrder.length; i++ )
+            {
+                boolean sameRank = i > 0 && locationComparator.compare( locations.get( locationOrder[ i - 1 ] ),
+                                                                        locations.get( locationOrder[ i ] ) ) == 0;
+                locationRanks[ locationOrder[ i ] ] = sameRank ? locationRanks[ locationOrder[ i - 1 ] ] : i;
+            }
+
+            long[] keys = new long[ store.statementCount() ];
+            int n = 0;
+            for ( int row = 0; row < store.size(); row++ )
+            {
+                if ( !store.isIgnored( row ) )
+                {
+                    keys[ n++ ] = ( (long) locationRanks[ store.locationIndex( row ) ] << 32 ) | row;
+                }
+            }
+            Arrays.sort( keys );
+
+            rows = new int[ n ];
+            Comparator<Integer> rowOrder = Comparator.comparingInt( ( Integer row ) -> store.line( row ) )
+                .thenComparingInt( store::id );
+            for ( int from = 0; from < n; )
+            {
+                int to = from + 1;
+                while ( to < n && keys[ to ] >>> 32 == keys[ from ] >>> 32 )
+                {
+                    to++;
+                }
+                Integer[] group = new Integer[ to - from ];
+                for ( int i = from; i < to; i++ )
+                {
+                    group[ i - from ] = (int) keys[ i ];
+                }
+                Arrays.sort( group, rowOrder );
+                for ( int i = from; i < to; i++ )
+                {
+                    rows[ i ] = group[ i - from ];
+                }
+                from = to;
+            }
+        }
+
+        @Override
+        public int size()
+        {
+            return rows.length;
+        }
+
+        @Override
+        public Statement get( int index )
+        {
+            return store.statement( rows[ index ] );
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of test ids (indexes into a test name dictionary) of one statement.
+ * <br>
+ * <br>
+ * Sparse sets are stored as a sorted int array. When the array would take more memory
+ * than a bitmap over ids up to the highest one, the set is converted to a bitmap of long words.
+ * Most statements are invoked by a few tests and keep a small array,
+ * statements invoked by most tests of a big test suite take one bit per test.
+ */
+public final class SCoverageTestBitmap
+{
+    private static final int INITIAL_CAPACITY = 2;
+
+    private int[] array = new int[ INITIAL_CAPACITY ];
+
+    private int size;
+
+    private long[] words;
+
+    /**
+     * Adds test id.
+     *
+     * @param testId non-negative test id
+     * @return true if the id was not in the set
+     */
+    public boolean add( int testId )
+    {
+        if ( words != null )
+        {
+            int wordIndex = testId >>> 6;
+            if ( wordIndex >= words.length )
+            {
+                words = Arrays.copyOf( words, Math.max( wordIndex + 1, words.length * 2 ) );
+            }
+            long mask = 1L << testId;
+            if ( ( words[ wordIndex ] & mask ) != 0 )
+            {
+                return false;
+            }
+            words[ wordIndex ] |= mask;
+            size++;
+            return true;
+        }
+
+        int position = Arrays.binarySearch( array, 0, size, testId );
+        if ( position >= 0 )
+        {
+            return false;
+        }
+        position = -position - 1;
+        if ( size == array.length )
+        {
+            int maxId = Math.max( testId, array[ size - 1 ] );
+            // bitmap words of ids up to maxId take no more memory than the grown array
+            if ( ( maxId >>> 6 ) + 1 <= size )
+            {
+                toBitmap( maxId );
+                return add( testId );
+            }
+            array = Arrays.copyOf( array, size * 2 );
+        }
+        System.arraycopy( array, position, array, position + 1, size - position );
+        array[ position ] = testId;
+        size++;
+        return true;
+    }
+
+    /**
+     * Checks if the set contains test id.
+     *
+     * @param testId test id
+     * @return true if the id is in the set
+     */
+    public boolean contains( int testId )
+    {
+        if ( words != null )
+        {
+            int wordIndex = testId >>> 6;
+            return wordIndex < words.length && ( words[ wordIndex ] & ( 1L << testId ) ) != 0;
+        }
+        return Arrays.binarySearch( array, 0, size, testId ) >= 0;
+    }
+
+    /**
+     * Returns the number of test ids in the set.
+     *
+     * @return number of test ids
+     */
+    public int cardinality()
+    {
+        return size;
+    }
+
+    /**
+     * Calls action for every test id in the set, in increasing order.
+     *
+     * @param action action to call
+     */
+    public void forEach( IntConsumer action )
+    {
+        if ( words != null )
+        {
+            for ( int wordIndex = 0; wordIndex < words.length; wordIndex++ )
+            {
+                long word = words[ wordIndex ];
+                while ( word != 0 )
+                {
+                    action.accept( ( wordIndex << 6 ) + Long.numberOfTrailingZeros( word ) );
+                    word &= word - 1;
+                }
+            }
+            return;
+        }
+        for ( int i = 0; i < size; i++ )
+        {
+            action.accept( array[ i ] );
+        }
+    }
+
+    private void toBitmap( int maxId )
+    {
+        words = new long[ ( maxId >>> 6 ) + 1 ];
+        for ( int i = 0; i < size; i++ )
+        {
+            words[ array[ i ] >>> 6 ] |= 1L << array[ i ];
+        }
+        array = null;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Open addressing hash table of test bitmaps keyed by statement id or row, without boxing of keys.
+ * <br>
+ * <br>
+ * Keys must be non-negative. Not thread-safe while bitmaps are added, safe for concurrent reading after that.
+ */
+final class SCoverageTestBitmaps
+{
+    private static final int FREE = -1;
+
+    private int[] ids = newIds( 16 );
+
+    private SCoverageTestBitmap[] bitmaps = new SCoverageTestBitmap[ 16 ];
+
+    private int size;
+
+    SCoverageTestBitmap get( int id )
+    {
+        int slot = slot( ids, id );
+        return ids[ slot ] == id ? bitmaps[ slot ] : null;
+    }
+
+    SCoverageTestBitmap getOrAdd( int id )
+    {
+        int slot = slot( ids, id );
+        if ( ids[ slot ] != id )
+        {
+            // load factor at most 3/4
+            if ( ( size + 1 ) * 4L > ids.length * 3L )
+            {
+                grow();
+                slot = slot( ids, id );
+            }
+            ids[ slot ] = id;
+            bitmaps[ slot ] = new SCoverageTestBitmap();
+            size++;
+        }
+        return bitmaps[ slot ];
+    }
+
+    boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    void forEach( ObjIntConsumer<SCoverageTestBitmap> action )
+    {
+        for ( int slot = 0; slot < ids.length; slot++ )
+        {
+            if ( ids[ slot ] != FREE )
+            {
+                action.accept( bitmaps[ slot ], ids[ slot ] );
+            }
+        }
+    }
+
+    int[] sortedIds()
+    {
+        int[] sorted = new int[ size ];
+        int n = 0;
+        for ( int id : ids )
+        {
+            if ( id != FREE )
+            {
+                sorted[ n++ ] = id;
+            }
+        }
+        Arrays.sort( sorted );
+        return sorted;
+    }
+
+    private void grow()
+    {
+        int[] oldIds = ids;
+        SCoverageTestBitmap[] oldBitmaps = bitmaps;
+        ids = newIds( oldIds.length * 2 );
+        bitmaps = new SCoverageTestBitmap[ oldIds.length * 2 ];
+        for ( int i = 0; i < oldIds.length; i++ )
+        {
+            if ( oldIds[ i ] != FREE )
+            {
+                int slot = slot( ids, oldIds[ i ] );
+                ids[ slot ] = oldIds[ i ];
+                bitmaps[ slot ] = oldBitmaps[ i ];
+            }
+        }
+    }
+
+    /**
+     * Returns slot of the id or the free slot where it belongs, by linear probing.
+     */
+    private static int slot( int[] ids, int id )
+    {
+        int mask = ids.length - 1;
+        int hash = id * 0x9E3779B9;
+        int slot = ( hash ^ ( hash >>> 16 ) ) & mask;
+        while ( ids[ slot ] != FREE && ids[ slot ] != id )
+        {
+            slot = ( slot + 1 ) & mask;
+        }
+        return slot;
+    }
+
+    private static int[] newIds( int capacity )
+    {
+        int[] ids = new int[ capacity ];
+        Arrays.fill( ids, FREE );
+        return ids;
+    }
+}
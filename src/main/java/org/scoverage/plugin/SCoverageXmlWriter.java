@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import scoverage.domain.DoubleFormat;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+import scoverage.reporter.ScoverageXmlWriter;
+
+/**
+ * Streaming scoverage XML report writer, writing {@code scoverage.xml} file
+ * in the same format as {@link ScoverageXmlWriter}.
+ */
+public class SCoverageXmlWriter
+    extends SCoverageStreamingXmlWriter
+{
+    /**
+     * Creates scoverage XML report writer.
+     *
+     * @param sourceIndex index of coverage source files
+     * @param outputDirectory report output directory
+     * @param encoding report file encoding, platform default if {@code null}
+     */
+    public SCoverageXmlWriter( SCoverageSourceIndex sourceIndex, File outputDirectory, String encoding )
+    {
+        super( sourceIndex, new File( outputDirectory, "scoverage.xml" ), encoding );
+    }
+
+    @Override
+    protected void writeDocument( XMLStreamWriter xml, SortedStatements statements, SCoverageRollup.Metrics total )
+        throws XMLStreamException
+    {
+        xml.writeStartElement( "scoverage" );
+        writeCounts( xml, total );
+        xml.writeAttribute( "branch-rate", DoubleFormat.twoFractionDigits( total.branchCoveragePercent() ) );
+        xml.writeAttribute( "version", "1.0" );
+        xml.writeAttribute( "timestamp", Long.toString( System.currentTimeMillis() ) );
+
+        startElement( xml, 1, "packages" );
+        for ( int p = 0; p < statements.size(); )
+        {
+            int packageEnd = groupEnd( statements, p, statements.size(), PACKAGE );
+            startElement( xml, 2, "package" );
+            xml.writeAttribute( "name", statements.get( p ).location().packageName() );
+            writeCounts( xml, metrics( statements, p, packageEnd ) );
+            startElement( xml, 3, "classes" );
+            for ( int c = p; c < packageEnd; )
+            {
+                int classEnd = groupEnd( statements, c, packageEnd, CLASS );
+                writeClass( xml, statements, c, classEnd );
+                c = classEnd;
+            }
+            endElement( xml, 3 );
+            endElement( xml, 2 );
+            p = packageEnd;
+        }
+        endElement( xml, 1 );
+        endElement( xml, 0 );
+        xml.writeEndDocument();
+    }
+
+    private void writeClass( XMLStreamWriter xml, SortedStatements statements, int from, int to )
+        throws XMLStreamException
+    {
+        SCoverageRollup.Metrics metrics = metrics( statements, from, to );
+        startElement( xml, 4, "class" );
+        xml.writeAttribute( "name", statements.get( from ).location().fullClassName() );
+        xml.writeAttribute( "filename", relativeSource( statements.get( from ).source() ) );
+        writeCounts( xml, metrics );
+        xml.writeAttribute( "branch-rate", DoubleFormat.twoFractionDigits( metrics.branchCoveragePercent() ) );
+
+        startElement( xml, 5, "methods" );
+        for ( int m = from; m < to; )
+        {
+            int methodEnd = groupEnd( statements, m, to, METHOD );
+            SCoverageRollup.Metrics methodMetrics = metrics( statements, m, methodEnd );
+            startElement( xml, 6, "method" );
+            xml.writeAttribute( "name", String.valueOf( statements.get( m ).location().method() ) );
+            writeCounts( xml, methodMetrics );
+            xml.writeAttribute( "branch-rate", DoubleFormat.twoFractionDigits( methodMetrics.branchCoveragePercent() ) );
+            startElement( xml, 7, "statements" );
+            for ( int i = m; i < methodEnd; i++ )
+            {
+                writeStatement( xml, statements.get( i ) );
+            }
+            endElement( xml, 7 );
+            endElement( xml, 6 );
+            m = methodEnd;
+        }
+        endElement( xml, 5 );
+        endElement( xml, 4 );
+    }
+
+    private static void writeStatement( XMLStreamWriter xml, Statement statement )
+        throws XMLStreamException
+    {
+        Location location = statement.location();
+        emptyElement( xml, 8, "statement" );
+        xml.writeAttribute( "package", location.packageName() );
+        xml.writeAttribute( "class", location.className() );
+        xml.writeAttribute( "class-type", String.valueOf( location.classType() ) );
+        xml.writeAttribute( "full-class-name", location.fullClassName() );
+        xml.writeAttribute( "source", statement.source() );
+        xml.writeAttribute( "method", String.valueOf( location.method() ) );
+        xml.writeAttribute( "start", Integer.toString( statement.start() ) );
+        xml.writeAttribute( "end", Integer.toString( statement.end() ) );
+        xml.writeAttribute( "line", Integer.toString( statement.line() ) );
+        xml.writeAttribute( "symbol", String.valueOf( statement.symbolName() ) );
+        xml.writeAttribute( "tree", String.valueOf( statement.treeName() ) );
+        xml.writeAttribute( "branch", Boolean.toString( statement.branch() ) );
+        xml.writeAttribute( "invocation-count", Integer.toString( statement.count() ) );
+        xml.writeAttribute( "ignored", Boolean.toString( statement.ignored() ) );
+    }
+
+    private static void writeCounts( XMLStreamWriter xml, SCoverageRollup.Metrics metrics )
+        throws XMLStreamException
+    {
+        xml.writeAttribute( "statement-count", Integer.toString( metrics.getStatementCount() ) );
+        xml.writeAttribute( "statements-invoked", Integer.toString( metrics.getInvokedStatementCount() ) );
+        xml.writeAttribute( "statement-rate", DoubleFormat.twoFractionDigits( metrics.statementCoveragePercent() ) );
+    }
+}
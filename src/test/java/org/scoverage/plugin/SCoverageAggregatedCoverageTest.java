@@ -0,0 +1,134 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import scala.Tuple2;
+import scala.collection.mutable.HashSet;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+
+import static org.junit.Assert.*;
+
+public class SCoverageAggregatedCoverageTest {
+
+    @Test
+    public void testIdOffsets() {
+        SCoverageAggregatedCoverage coverage = new SCoverageAggregatedCoverage();
+        assertEquals(0, coverage.addModule(module("A.scala", 0, 1, 2)));
+        assertEquals(3, coverage.addModule(module("B.scala", 0, 4)));
+        assertEquals(8, coverage.addModule(module("C.scala", 1)));
+        assertEquals(3, coverage.moduleCount());
+        assertEquals(3, coverage.idOffset(1));
+    }
+
+    @Test
+    public void testStatementsView() {
+        SCoverageAggregatedCoverage coverage = new SCoverageAggregatedCoverage();
+        coverage.addModule(module("A.scala", 0, 1, 2));
+        coverage.addModule(module("B.scala", 0, 4));
+
+        assertEquals(5, coverage.statementCount());
+        assertEquals(5, coverage.statements().size());
+        assertEquals(0, coverage.invokedStatementCount());
+    }
+
+    @Test
+    public void testAggregatedIds() {
+        Coverage a = module("A.scala", 0, 1, 2);
+        a.addIgnoredStatement(statement("A.scala", 3));
+        SCoverageAggregatedCoverage coverage = new SCoverageAggregatedCoverage();
+        coverage.addModule(a);
+        assertEquals(4, coverage.addModule(new Coverage()));
+        assertEquals(5, coverage.addModule(module("B.scala", 0, 1)));
+
+        Set<Integer> ids = new TreeSet<>();
+        coverage.statements().foreach(statement -> ids.add(statement.id()));
+        assertEquals(new TreeSet<>(Arrays.asList(0, 1, 2, 5, 6)), ids);
+        assertEquals(5, coverage.statementCount());
+
+        // ignored statements are not aggregated
+        assertTrue(coverage.ignoredStatements().isEmpty());
+        assertEquals(0, coverage.ignoredStatementCount());
+    }
+
+    @Test
+    public void testInvokedByAggregatedId() {
+        Coverage a = module("A.scala", 0, 1, 2);
+        Coverage b = module("B.scala", 0, 4);
+        SCoverageAggregatedCoverage coverage = new SCoverageAggregatedCoverage();
+        coverage.addModule(a);
+        coverage.addModule(b);
+
+        coverage.invoked(new Tuple2<Object, String>(1, ""));
+        coverage.invoked(new Tuple2<Object, String>(7, "test"));
+        coverage.invoked(new Tuple2<Object, String>(100, ""));
+
+        assertEquals(1, a.invokedStatementCount());
+        assertEquals(1, b.invokedStatementCount());
+        assertEquals(2, coverage.invokedStatementCount());
+    }
+
+    @Test
+    public void testNestedView() {
+        Coverage a = module("A.scala", 0, 1, 2);
+        Coverage b = module("B.scala", 0, 4);
+        SCoverageAggregatedCoverage subtree = new SCoverageAggregatedCoverage();
+        subtree.addModule(a);
+        subtree.addModule(b);
+        Coverage c = module("C.scala", 0, 1);
+        SCoverageAggregatedCoverage root = new SCoverageAggregatedCoverage();
+        assertEquals(0, root.addModule(c));
+        assertEquals(2, root.addModule(subtree));
+
+        assertEquals(7, root.statementCount());
+        assertEquals(7, root.statements().size());
+
+        // aggregated id 2 + 3 + 4 is id 4 of module B in the nested view
+        root.invoked(new Tuple2<Object, String>(9, ""));
+        assertEquals(1, b.invokedStatementCount());
+        assertEquals(1, root.invokedStatementCount());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddNotSupported() {
+        new SCoverageAggregatedCoverage().add(statement("A.scala", 0));
+    }
+
+    private static Coverage module(String source, int... ids) {
+        Coverage coverage = new Coverage();
+        for (int id : ids) {
+            coverage.add(statement(source, id));
+        }
+        return coverage;
+    }
+
+    private static Statement statement(String source, int id) {
+        Location location = new Location("pkg", "Cls", "pkg.Cls", null, "method", source);
+        return new Statement(location, id, 0, 1, 1, "desc", "symbol", "tree", false, 0, false,
+                new HashSet<String>());
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class SCoverageCompileCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testKeyChangesWithInputs() throws IOException {
+        File sourceRoot = temp.newFolder();
+        write(new File(sourceRoot, "a/A.scala"), "object A");
+        File classpathDir = temp.newFolder();
+        write(new File(classpathDir, "b/B.class"), "B");
+        List<String> sourceRoots = Collections.singletonList(sourceRoot.getAbsolutePath());
+        List<File> classpath = Collections.singletonList(classpathDir);
+        List<String> settings = Collections.singletonList("<configuration><release>17</release></configuration>");
+
+        String key = SCoverageCompileCache.key(sourceRoots, classpath, "2.13.16", "-Yrangepos", settings);
+        assertEquals(key, SCoverageCompileCache.key(sourceRoots, classpath, "2.13.16", "-Yrangepos", settings));
+        assertNotEquals(key, SCoverageCompileCache.key(sourceRoots, classpath, "2.13.15", "-Yrangepos", settings));
+        assertNotEquals(key, SCoverageCompileCache.key(sourceRoots, classpath, "2.13.16", "", settings));
+        assertNotEquals(key, SCoverageCompileCache.key(sourceRoots, Collections.<File>emptyList(), "2.13.16", "-Yrangepos", settings));
+        assertNotEquals(key, SCoverageCompileCache.key(sourceRoots, classpath, "2.13.16", "-Yrangepos",
+                Collections.singletonList("<configuration><release>11</release></configuration>")));
+
+        write(new File(sourceRoot, "a/A.scala"), "object A { }");
+        String changedSource = SCoverageCompileCache.key(sourceRoots, classpath, "2.13.16", "-Yrangepos", settings);
+        assertNotEquals(key, changedSource);
+
+        write(new File(classpathDir, "b/B.class"), "BB");
+        assertNotEquals(changedSource, SCoverageCompileCache.key(sourceRoots, classpath, "2.13.16", "-Yrangepos", settings));
+    }
+
+    @Test
+    public void testStoreAndRestore() throws IOException {
+        File cacheDir = new File(temp.getRoot(), "cache");
+        File classesDir = temp.newFolder("scoverage-classes");
+        File dataDir = temp.newFolder("scoverage-data");
+        write(new File(classesDir, "a/A.class"), "A");
+        write(new File(dataDir, "scoverage.coverage"), "# instrumentation");
+
+        SCoverageCompileCache missing = new SCoverageCompileCache(cacheDir, "k");
+        assertFalse(missing.restore(classesDir, dataDir));
+        assertFalse(missing.isRestored());
+        assertTrue(missing.store(classesDir, dataDir));
+        assertFalse(missing.store(classesDir, dataDir));
+
+        File otherClassesDir = new File(temp.getRoot(), "other-classes");
+        write(new File(otherClassesDir, "stale/S.class"), "S");
+        File otherDataDir = new File(temp.getRoot(), "other-data");
+        SCoverageCompileCache cached = new SCoverageCompileCache(cacheDir, "k");
+        assertTrue(cached.restore(otherClassesDir, otherDataDir));
+        assertTrue(cached.isRestored());
+        assertEquals("A", read(new File(otherClassesDir, "a/A.class")));
+        assertFalse(new File(otherClassesDir, "stale/S.class").exists());
+        assertEquals("# instrumentation", read(new File(otherDataDir, "scoverage.coverage")));
+        assertArrayEquals(new String[] { "k" }, cacheDir.list());
+    }
+
+    @Test
+    public void testResourcesNotCached() throws IOException {
+        File cacheDir = new File(temp.getRoot(), "cache");
+        File classesDir = temp.newFolder("scoverage-classes");
+        File dataDir = temp.newFolder("scoverage-data");
+        write(new File(classesDir, "a/A.class"), "A");
+        write(new File(classesDir, "a/A.tasty"), "TASTy");
+        write(new File(classesDir, "application.conf"), "old = true");
+        write(new File(dataDir, "scoverage.coverage"), "# instrumentation");
+        assertTrue(new SCoverageCompileCache(cacheDir, "k").store(classesDir, dataDir));
+
+        File otherClassesDir = new File(temp.getRoot(), "other-classes");
+        write(new File(otherClassesDir, "deleted.conf"), "deleted = true");
+        assertTrue(new SCoverageCompileCache(cacheDir, "k").restore(otherClassesDir, dataDir));
+        assertEquals("A", read(new File(otherClassesDir, "a/A.class")));
+        assertEquals("TASTy", read(new File(otherClassesDir, "a/A.tasty")));
+        // resources are copied by process-resources phase after restore
+        assertFalse(new File(otherClassesDir, "application.conf").exists());
+        assertFalse(new File(otherClassesDir, "deleted.conf").exists());
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+
+import scala.collection.mutable.HashSet;
+import scala.jdk.javaapi.CollectionConverters;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+
+import static org.junit.Assert.*;
+
+public class SCoverageDeduplicatorTest {
+
+    @Test
+    public void testEqualLocationsAndStringsShared() {
+        Coverage coverage = new Coverage();
+        coverage.add(statement(1, "run"));
+        coverage.add(statement(2, "run"));
+        coverage.add(statement(3, "stop"));
+        coverage.addIgnoredStatement(statement(4, "run"));
+
+        Coverage deduplicated = SCoverageDeduplicator.deduplicate(coverage);
+
+        List<Statement> statements = new ArrayList<>(CollectionConverters.asJavaCollection(deduplicated.statements()));
+        statements.sort(Comparator.comparingInt(Statement::id));
+        assertEquals(3, statements.size());
+        assertSame(statements.get(0).location(), statements.get(1).location());
+        assertNotSame(statements.get(0).location(), statements.get(2).location());
+        assertSame(statements.get(0).source(), statements.get(2).source());
+        assertSame(statements.get(0).location().packageName(), statements.get(2).location().packageName());
+        assertSame(statements.get(0).symbolName(), statements.get(2).symbolName());
+        assertEquals("stop", statements.get(2).location().method());
+        assertEquals(3, statements.get(2).id());
+        assertEquals(3, statements.get(2).line());
+        assertEquals(1, statements.get(2).count());
+
+        Statement ignored = deduplicated.ignoredStatements().head();
+        assertSame(statements.get(0).location(), ignored.location());
+    }
+
+    /**
+     * Statement with its own copies of all strings, as created by serializer.
+     */
+    private static Statement statement(int id, String method) {
+        Location location = new Location(new String("a.b"), new String("C"), new String("a.b.C"), null,
+                new String(method), new String("/src/a/b/C.scala"));
+        return new Statement(location, id, 0, 1, id, "desc", new String("scala.Predef.println"), new String("Apply"),
+                false, 1, false, new HashSet<String>());
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+
+import static org.junit.Assert.*;
+
+public class SCoverageHtmlManifestTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testChangedSourcesOnly() throws IOException {
+        File sourceRoot = temp.newFolder();
+        File outputDir = temp.newFolder();
+        File manifestFile = new File(temp.getRoot(), "scoverage-html.manifest");
+        String a = source(sourceRoot, "a/A.scala");
+        String b = source(sourceRoot, "b/B.scala");
+        assertNull(SCoverageHtmlManifest.read(manifestFile));
+
+        SCoverageHtmlManifest manifest = manifest(sourceRoot, outputDir, statement(a, 1, 0), statement(b, 2, 0));
+        assertEquals(new HashSet<>(Arrays.asList(a, b)), manifest.changedSources(null, outputDir));
+        manifest.write(manifestFile);
+        write(outputDir, "a/A.scala.html");
+        write(outputDir, "b/B.scala.html");
+
+        SCoverageHtmlManifest previous = SCoverageHtmlManifest.read(manifestFile);
+        manifest = manifest(sourceRoot, outputDir, statement(a, 1, 0), statement(b, 2, 0));
+        assertTrue(manifest.changedSources(previous, outputDir).isEmpty());
+        assertTrue(manifest.removedPages(previous).isEmpty());
+
+        // measured statements changed
+        manifest = manifest(sourceRoot, outputDir, statement(a, 1, 1), statement(b, 2, 0));
+        assertEquals(Collections.singleton(a), manifest.changedSources(previous, outputDir));
+
+        // source file changed, its page is missing
+        assertTrue(new File(b).setLastModified(new File(b).lastModified() - 10000));
+        Files.delete(new File(outputDir, "a/A.scala.html").toPath());
+        manifest = manifest(sourceRoot, outputDir, statement(a, 1, 0), statement(b, 2, 0));
+        assertEquals(new HashSet<>(Arrays.asList(a, b)), manifest.changedSources(previous, outputDir));
+
+        // source file not measured anymore
+        manifest = manifest(sourceRoot, outputDir, statement(a, 1, 0));
+        assertEquals(Collections.singletonList("b/B.scala.html"), manifest.removedPages(previous));
+
+        // report-wide inputs changed
+        manifest = manifest(sourceRoot, temp.newFolder(), statement(a, 1, 0));
+        assertEquals(Collections.singleton(a), manifest.changedSources(previous, outputDir));
+        assertTrue(manifest.removedPages(previous).isEmpty());
+    }
+
+    private static SCoverageHtmlManifest manifest(File sourceRoot, File outputDir, Statement... statements)
+            throws IOException {
+        Coverage coverage = new Coverage();
+        for (Statement statement : statements) {
+            coverage.add(statement);
+        }
+        SCoverageSourceIndex sourceIndex = SCoverageSourceIndex.build(Collections.singletonList(sourceRoot), coverage);
+        return SCoverageHtmlManifest.of(coverage, sourceIndex, "UTF-8", outputDir);
+    }
+
+    private static Statement statement(String source, int id, int count) {
+        Location location = new Location("p", "Cls", "p.Cls", null, "method", source);
+        return new Statement(location, id, 0, 1, 1, "desc", "symbol", "tree", false, count, false,
+                new scala.collection.mutable.HashSet<String>());
+    }
+
+    private static String source(File sourceRoot, String name) throws IOException {
+        File file = new File(sourceRoot, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), "object X".getBytes(StandardCharsets.UTF_8));
+        return file.getCanonicalPath();
+    }
+
+    private static void write(File dir, String name) throws IOException {
+        File file = new File(dir, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), name.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import scala.collection.mutable.HashSet;
+import scala.jdk.javaapi.CollectionConverters;
+
+import scoverage.domain.ClassType$;
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+
+import static org.junit.Assert.*;
+
+public class SCoverageInstrumentationCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        File dataDir = temp.newFolder();
+        File sourceRoot = temp.newFolder();
+        File otherSourceRoot = temp.newFolder();
+        Files.write(new File(dataDir, "scoverage.coverage").toPath(), "# instrumentation".getBytes(StandardCharsets.UTF_8));
+
+        String source = new File(sourceRoot, "src/a/A.scala").getCanonicalPath();
+        Location location = new Location("a", "A", "a.A", ClassType$.MODULE$.fromString("Class"), "run", source);
+        Location otherLocation = new Location("a", "A", "a.A", null, "stop", source);
+        Coverage coverage = new Coverage();
+        coverage.add(new Statement(location, 1, 10, 20, 3, "println(1)", "scala.Predef.println", "Apply", true, 0, false, new HashSet<String>()));
+        coverage.add(new Statement(location, 2, 30, 40, 4, "println(2)", "scala.Predef.println", "Apply", false, 0, false, new HashSet<String>()));
+        coverage.add(new Statement(otherLocation, 3, 50, 60, 5, "x", null, "Select", false, 0, false, new HashSet<String>()));
+        coverage.addIgnoredStatement(new Statement(location, 4, 70, 80, 6, "y", "y", "Ident", false, 0, true, new HashSet<String>()));
+
+        SCoverageInstrumentationCache.write(coverage, dataDir, sourceRoot);
+        // temporary file is moved into place
+        assertEquals(0, dataDir.listFiles((dir, name) -> name.endsWith(".tmp")).length);
+        Coverage cached = SCoverageInstrumentationCache.read(dataDir, otherSourceRoot);
+
+        List<Statement> statements = sorted(cached.statements());
+        assertEquals(3, statements.size());
+        Statement first = statements.get(0);
+        assertEquals(1, first.id());
+        assertEquals(10, first.start());
+        assertEquals(20, first.end());
+        assertEquals(3, first.line());
+        assertEquals("println(1)", first.desc());
+        assertEquals("scala.Predef.println", first.symbolName());
+        assertEquals("Apply", first.treeName());
+        assertTrue(first.branch());
+        assertEquals("Class", first.location().classType().toString());
+        assertEquals(new File(otherSourceRoot, "src/a/A.scala").getCanonicalPath(), first.source());
+        // equal locations are shared
+        assertSame(first.location(), statements.get(1).location());
+        assertNull(statements.get(2).location().classType());
+        assertNull(statements.get(2).symbolName());
+
+        List<Statement> ignored = sorted(cached.ignoredStatements());
+        assertEquals(1, ignored.size());
+        assertTrue(ignored.get(0).ignored());
+    }
+
+    @Test
+    public void testInvalidatedByInstrumentationChange() throws IOException {
+        File dataDir = temp.newFolder();
+        File coverageFile = new File(dataDir, "scoverage.coverage");
+        Files.write(coverageFile.toPath(), "# instrumentation".getBytes(StandardCharsets.UTF_8));
+
+        SCoverageInstrumentationCache.write(new Coverage(), dataDir, dataDir);
+        assertNotNull(SCoverageInstrumentationCache.read(dataDir, dataDir));
+
+        Files.write(coverageFile.toPath(), "# new instrumentation".getBytes(StandardCharsets.UTF_8));
+        assertNull(SCoverageInstrumentationCache.read(dataDir, dataDir));
+    }
+
+    private static List<Statement> sorted(scala.collection.Iterable<Statement> statements) {
+        List<Statement> list = new ArrayList<>(CollectionConverters.asJavaCollection(statements));
+        list.sort(Comparator.comparingInt(Statement::id));
+        return list;
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import scala.collection.mutable.HashSet;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+
+import static org.junit.Assert.*;
+
+public class SCoverageMeasurementsTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testCompact() throws IOException {
+        File dataDir = temp.newFolder();
+        write(dataDir, "scoverage.measurements.1", "5", "3", "5", "3 test.B");
+        write(dataDir, "scoverage.measurements.2", "3 test.A", "12", "", "5");
+        write(dataDir, "scoverage.coverage", "# not a measurement file");
+
+        assertEquals(2, SCoverageMeasurements.compact(dataDir, "UTF-8", false));
+
+        assertEquals(Arrays.asList("3", "3 test.A", "3 test.B", "5", "12"), read(dataDir, "scoverage.measurements.compacted"));
+        assertFalse(new File(dataDir, "scoverage.measurements.1").exists());
+        assertFalse(new File(dataDir, "scoverage.measurements.2").exists());
+        assertTrue(new File(dataDir, "scoverage.coverage").exists());
+    }
+
+    @Test
+    public void testCompactAgain() throws IOException {
+        File dataDir = temp.newFolder();
+        write(dataDir, "scoverage.measurements.1", "7", "1");
+        SCoverageMeasurements.compact(dataDir, "UTF-8", false);
+        write(dataDir, "scoverage.measurements.2", "2", "7");
+
+        assertEquals(2, SCoverageMeasurements.compact(dataDir, "UTF-8", false));
+        assertEquals(Arrays.asList("1", "2", "7"), read(dataDir, "scoverage.measurements.compacted"));
+        assertEquals(0, SCoverageMeasurements.compact(dataDir, "UTF-8", false));
+    }
+
+    @Test
+    public void testCompactBinary() throws IOException {
+        File dataDir = temp.newFolder();
+        write(dataDir, "scoverage.measurements.1", "5", "3", "5", "3 test.B", "70000 test.A");
+        write(dataDir, "scoverage.measurements.2", "3 test.A", "12");
+
+        assertEquals(2, SCoverageMeasurements.compact(dataDir, "UTF-8", true));
+        assertEquals(1, SCoverageMeasurements.findMeasurementFiles(dataDir).length);
+        assertTrue(new File(dataDir, SCoverageMeasurements.BINARY_FILE_NAME).isFile());
+
+        // back to text, reading binary file
+        write(dataDir, "scoverage.measurements.3", "4");
+        assertEquals(2, SCoverageMeasurements.compact(dataDir, "UTF-8", false));
+        assertEquals(Arrays.asList("3", "3 test.A", "3 test.B", "4", "5", "12", "70000 test.A"),
+                read(dataDir, "scoverage.measurements.compacted"));
+        assertFalse(new File(dataDir, SCoverageMeasurements.BINARY_FILE_NAME).exists());
+    }
+
+    @Test
+    public void testLoadInvokedIds() throws IOException {
+        File dataDir = temp.newFolder();
+        write(dataDir, "scoverage.measurements.1", "5", "3 test.B", "70000 test.A");
+        SCoverageMeasurements.compact(dataDir, "UTF-8", true);
+        write(dataDir, "scoverage.measurements.2", "12 test.C", "1");
+
+        BitSet ids = SCoverageMeasurements.loadInvokedIds(dataDir, "UTF-8").invokedIds();
+        assertEquals("{1, 3, 5, 12, 70000}", ids.toString());
+    }
+
+    @Test
+    public void testLoadConcurrently() throws IOException {
+        File dataDir = temp.newFolder();
+        write(dataDir, "scoverage.measurements.1", "5", "3 test.B", "70000 test.A");
+        SCoverageMeasurements.compact(dataDir, "UTF-8", true);
+        for (int i = 2; i < 10; i++) {
+            write(dataDir, "scoverage.measurements." + i, Integer.toString(i), "3 test.T" + (i % 3), "5 test.A");
+        }
+
+        File sequentialFile = new File(temp.getRoot(), "sequential");
+        File concurrentFile = new File(temp.getRoot(), "concurrent");
+        SCoverageMeasurements.load(dataDir, "UTF-8").writeText(sequentialFile, StandardCharsets.UTF_8);
+        SCoverageMeasurements.load(dataDir, "UTF-8", 4).writeText(concurrentFile, StandardCharsets.UTF_8);
+        assertEquals(Files.readAllLines(sequentialFile.toPath()), Files.readAllLines(concurrentFile.toPath()));
+        assertEquals(SCoverageMeasurements.loadInvokedIds(dataDir, "UTF-8").invokedIds(),
+                     SCoverageMeasurements.loadInvokedIds(dataDir, "UTF-8", 4).invokedIds());
+    }
+
+    @Test
+    public void testLoadOnCallerExecutor() throws IOException {
+        File dataDir = temp.newFolder();
+        for (int i = 1; i < 10; i++) {
+            write(dataDir, "scoverage.measurements." + i, Integer.toString(i), "3 test.T" + (i % 3), "5 test.A");
+        }
+
+        File sequentialFile = new File(temp.getRoot(), "sequential");
+        File executorFile = new File(temp.getRoot(), "executor");
+        SCoverageMeasurements.load(dataDir, "UTF-8").writeText(sequentialFile, StandardCharsets.UTF_8);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            SCoverageMeasurements.load(dataDir, "UTF-8", executor).writeText(executorFile, StandardCharsets.UTF_8);
+            // caller's executor is reused, not shut down
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(Files.readAllLines(sequentialFile.toPath()), Files.readAllLines(executorFile.toPath()));
+    }
+
+    @Test
+    public void testMergeShards() throws IOException {
+        File shard1 = temp.newFolder();
+        write(shard1, "scoverage.coverage", "# instrumentation");
+        write(shard1, "scoverage.measurements.1", "5", "3 test.B");
+        File shard2 = temp.newFolder();
+        write(shard2, "scoverage.coverage", "# instrumentation");
+        write(shard2, "scoverage.measurements.1", "3 test.A", "12");
+        SCoverageMeasurements.compact(shard2, "UTF-8", true);
+        File targetDir = new File(temp.getRoot(), "merged");
+
+        SCoverageMeasurements.merge(Arrays.asList(shard1, shard2), targetDir, "UTF-8", false, 2);
+
+        assertEquals(Arrays.asList("# instrumentation"), read(targetDir, "scoverage.coverage"));
+        assertEquals(Arrays.asList("3 test.A", "3 test.B", "5", "12"), read(targetDir, "scoverage.measurements.compacted"));
+        assertEquals(1, SCoverageMeasurements.findMeasurementFiles(targetDir).length);
+
+        // merging again into the same target keeps already merged measurements
+        write(shard1, "scoverage.measurements.2", "7");
+        SCoverageMeasurements.merge(Arrays.asList(shard1), targetDir, "UTF-8", true, 2);
+        assertEquals(1, SCoverageMeasurements.findMeasurementFiles(targetDir).length);
+        assertEquals("{3, 5, 7, 12}", SCoverageMeasurements.loadInvokedIds(targetDir, "UTF-8").invokedIds().toString());
+    }
+
+    @Test
+    public void testMergeDifferentInstrumentation() throws IOException {
+        File shard1 = temp.newFolder();
+        write(shard1, "scoverage.coverage", "# instrumentation");
+        File shard2 = temp.newFolder();
+        write(shard2, "scoverage.coverage", "# other instrumentation");
+        File targetDir = new File(temp.getRoot(), "merged");
+
+        try {
+            SCoverageMeasurements.merge(Arrays.asList(shard1, shard2), targetDir, "UTF-8", false, 2);
+            fail("Different instrumentation merged");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("differs"));
+        }
+        assertFalse(targetDir.exists());
+    }
+
+    @Test
+    public void testManyTestedStatements() throws IOException {
+        SCoverageInvocations invocations = new SCoverageInvocations();
+        for (int id = 999; id >= 0; id--) {
+            invocations.add(id * 7, "test." + (id % 3));
+            invocations.add(id * 7, "test.A");
+        }
+        invocations.add(1, "");
+        File binaryFile = new File(temp.getRoot(), "invocations.bin");
+        invocations.writeBinary(binaryFile);
+        SCoverageInvocations read = new SCoverageInvocations();
+        read.readBinary(binaryFile);
+        // binary file is not held open or mapped after reading
+        assertTrue(binaryFile.delete());
+
+        File textFile = new File(temp.getRoot(), "invocations.txt");
+        read.writeText(textFile, StandardCharsets.UTF_8);
+        List<String> lines = Files.readAllLines(textFile.toPath());
+        assertEquals(2001, lines.size());
+        assertEquals(Arrays.asList("0 test.0", "0 test.A", "1", "7 test.1", "7 test.A"), lines.subList(0, 5));
+        assertEquals("6993 test.A", lines.get(2000));
+    }
+
+    @Test
+    public void testApplyWithoutTestNames() throws IOException {
+        File dataDir = temp.newFolder();
+        write(dataDir, "scoverage.measurements.1", "1", "1 test.A", "1 test.B", "2 test.A", "2 test.A");
+        SCoverageInvocations invocations = SCoverageMeasurements.load(dataDir, "UTF-8");
+
+        Coverage withNames = coverage();
+        invocations.applyTo(withNames);
+        Coverage withoutNames = coverage();
+        invocations.applyTo(withoutNames, false);
+
+        for (Coverage coverage : Arrays.asList(withNames, withoutNames)) {
+            assertEquals(3, statement(coverage, 1).count());
+            assertEquals(1, statement(coverage, 2).count());
+        }
+        assertEquals(2, statement(withNames, 1).tests().size());
+        assertTrue(statement(withoutNames, 1).tests().isEmpty());
+    }
+
+    private static Coverage coverage() {
+        Location location = new Location("a", "A", "a.A", null, "run", "/src/a/A.scala");
+        Coverage coverage = new Coverage();
+        for (int id = 1; id <= 2; id++) {
+            coverage.add(new Statement(location, id, 0, 1, id, "desc", null, "Apply", false, 0, false,
+                    new HashSet<String>()));
+        }
+        return coverage;
+    }
+
+    private static Statement statement(Coverage coverage, int id) {
+        return coverage.statements().find(s -> s.id() == id).get();
+    }
+
+    private static void write(File dir, String name, String... lines) throws IOException {
+        Files.write(new File(dir, name).toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    private static List<String> read(File dir, String name) throws IOException {
+        return Files.readAllLines(new File(dir, name).toPath(), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import scala.Option;
+import scala.collection.mutable.HashSet;
+import scala.jdk.javaapi.CollectionConverters;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+import scoverage.reporter.ScoverageHtmlWriter;
+
+import static org.junit.Assert.*;
+
+public class SCoverageParallelHtmlWriterTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testPartDirectoriesRemoved() throws IOException {
+        File sourceRoot = temp.newFolder();
+        File outputDir = new File(temp.getRoot(), "scoverage");
+        Coverage coverage = new Coverage();
+        coverage.add(statement("a", new File(sourceRoot, "a/A.scala").getCanonicalPath(), 1));
+        coverage.add(statement("b", new File(sourceRoot, "b/B.scala").getCanonicalPath(), 2));
+        coverage.add(statement("c", new File(sourceRoot, "c/C.scala").getCanonicalPath(), 3));
+
+        SCoverageSourceIndex sourceIndex = SCoverageSourceIndex.build(Collections.singletonList(sourceRoot), coverage);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            new SCoverageParallelHtmlWriter(sourceIndex, outputDir, "UTF-8", executor, 2).write(coverage);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertFalse(new File(temp.getRoot(), ".scoverage.part0").exists());
+        assertFalse(new File(temp.getRoot(), ".scoverage.part1").exists());
+        assertFalse(new File(temp.getRoot(), ".scoverage.index").exists());
+        assertFalse(new File(temp.getRoot(), ".scoverage.sources").exists());
+    }
+
+    @Test
+    public void testPagesIndependentOfThreads() throws IOException {
+        File sourceRoot = temp.newFolder();
+        Coverage coverage = aggregatedCoverage(sourceRoot, 0);
+        SCoverageSourceIndex sourceIndex = SCoverageSourceIndex.build(Collections.singletonList(sourceRoot), coverage);
+
+        File expectedDir = new File(temp.getRoot(), "single");
+        new SCoverageParallelHtmlWriter(sourceIndex, expectedDir, null, 1, PageWriter::new).write(coverage);
+        Map<String, String> expected = pages(expectedDir);
+        assertTrue(expected.get("a/A.scala.html").contains("object A"));
+        for (int threads : new int[] {2, 4}) {
+            File outputDir = new File(temp.getRoot(), "threads" + threads);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                new SCoverageParallelHtmlWriter(sourceIndex, outputDir, executor, threads, PageWriter::new).write(coverage);
+            } finally {
+                executor.shutdownNow();
+            }
+            assertEquals(expected, pages(outputDir));
+        }
+    }
+
+    @Test
+    public void testChangedSourcePagesOnly() throws IOException {
+        File sourceRoot = temp.newFolder();
+        File outputDir = new File(temp.getRoot(), "incremental");
+        Coverage coverage = aggregatedCoverage(sourceRoot, 0);
+        SCoverageSourceIndex sourceIndex = SCoverageSourceIndex.build(Collections.singletonList(sourceRoot), coverage);
+        new SCoverageParallelHtmlWriter(sourceIndex, outputDir, null, 1, PageWriter::new).write(coverage);
+
+        // statements of c/d/D.scala in the second module are invoked
+        Coverage changed = aggregatedCoverage(sourceRoot, 3);
+        String source = new File(sourceRoot, "c/d/D.scala").getCanonicalPath();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            new SCoverageParallelHtmlWriter(sourceIndex, outputDir, executor, 2, PageWriter::new)
+                    .write(changed, Collections.singleton(source));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        File expectedDir = new File(temp.getRoot(), "full");
+        new SCoverageParallelHtmlWriter(sourceIndex, expectedDir, null, 1, PageWriter::new).write(changed);
+        assertEquals(pages(expectedDir), pages(outputDir));
+    }
+
+    /**
+     * Aggregated coverage of two modules with the same statement ids, statements of c/d/D.scala invoked count times.
+     */
+    private Coverage aggregatedCoverage(File sourceRoot, int count) throws IOException {
+        SCoverageAggregatedCoverage coverage = new SCoverageAggregatedCoverage();
+        String[][] modules = {{"a/A.scala", "a/B.scala", "b/C.scala"}, {"c/d/D.scala", "E.scala"}};
+        for (String[] sources : modules) {
+            Coverage module = new Coverage();
+            int id = 0;
+            for (String source : sources) {
+                File sourceFile = new File(sourceRoot, source);
+                sourceFile.getParentFile().mkdirs();
+                String name = sourceFile.getName().substring(0, 1);
+                Files.write(sourceFile.toPath(), ("object " + name + " { def x = \"\u00e9\" }\n").getBytes(StandardCharsets.UTF_8));
+                String packageName = source.contains("/") ? source.substring(0, source.lastIndexOf('/')).replace('/', '.') : "<empty>";
+                for (int i = 0; i < 3; i++, id++) {
+                    module.add(statement(packageName, sourceFile.getCanonicalPath(), id, source.equals("c/d/D.scala") ? count : 0));
+                }
+            }
+            coverage.addModule(module);
+        }
+        return coverage;
+    }
+
+    private static Map<String, String> pages(File dir) throws IOException {
+        Map<String, String> pages = new TreeMap<>();
+        if (dir.isDirectory()) {
+            try (Stream<Path> files = Files.walk(dir.toPath())) {
+                for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                    pages.put(dir.toPath().relativize(file).toString(), new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return pages;
+    }
+
+    private static Statement statement(String packageName, String source, int id) {
+        return statement(packageName, source, id, 0);
+    }
+
+    private static Statement statement(String packageName, String source, int id, int count) {
+        Location location = new Location(packageName, "Cls", packageName + ".Cls", null, "method", source);
+        return new Statement(location, id, 0, 1, 1, "desc", "symbol", "tree", false, count, false, new HashSet<String>());
+    }
+
+    /**
+     * Writes pages with the layout of ScoverageHtmlWriter: index pages and package pages from all statements,
+     * source file pages from the source file and its statements.
+     */
+    private static final class PageWriter extends ScoverageHtmlWriter {
+
+        private final List<File> sourceRoots;
+
+        private final File outputDir;
+
+        PageWriter(List<File> sourceRoots, File outputDir) {
+            super(CollectionConverters.asScala(sourceRoots).toSeq(), outputDir, Option.<String>empty());
+            this.sourceRoots = sourceRoots;
+            this.outputDir = outputDir;
+        }
+
+        @Override
+        public void write(Coverage coverage) {
+            try {
+                Map<String, StringBuilder> packages = new TreeMap<>();
+                Map<String, StringBuilder> files = new TreeMap<>();
+                StringBuilder overview = new StringBuilder();
+                List<Statement> statements = new ArrayList<>();
+                coverage.statements().foreach(statements::add);
+                statements.sort(Comparator.comparingInt(Statement::id));
+                for (Statement statement : statements) {
+                    String line = relativeSource(statement.source()) + " " + statement.id() + " " + statement.count() + "\n";
+                    overview.append(line);
+                    packages.computeIfAbsent(statement.location().packageName(), p -> new StringBuilder()).append(line);
+                    files.computeIfAbsent(statement.source(), f -> new StringBuilder()).append(line);
+                }
+                page("index.html", "index");
+                page("packages.html", String.join("\n", packages.keySet()));
+                page("overview.html", overview.toString());
+                for (Map.Entry<String, StringBuilder> pkg : packages.entrySet()) {
+                    page(pkg.getKey().replace("<empty>", "(empty)") + ".html", pkg.getValue().toString());
+                }
+                for (Map.Entry<String, StringBuilder> file : files.entrySet()) {
+                    String source = new String(Files.readAllBytes(Paths.get(file.getKey())), StandardCharsets.UTF_8);
+                    page(relativeSource(file.getKey()) + ".html", source + file.getValue());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private String relativeSource(String source) throws IOException {
+            for (File sourceRoot : sourceRoots) {
+                String root = sourceRoot.getCanonicalPath() + File.separator;
+                if (source.startsWith(root)) {
+                    return source.substring(root.length());
+                }
+            }
+            throw new IllegalStateException("No source root found for " + source);
+        }
+
+        private void page(String name, String content) throws IOException {
+            File page = new File(outputDir, name);
+            page.getParentFile().mkdirs();
+            Files.write(page.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import scala.collection.mutable.HashSet;
+import scala.jdk.javaapi.CollectionConverters;
+
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+
+import static org.junit.Assert.*;
+
+public class SCoverageRollupTest {
+
+    @Test
+    public void testRollup() {
+        List<Statement> statements = Arrays.asList(
+                statement("a", "src/a/A.scala", 0, false),
+                statement("a", "src/a/A.scala", 1, true),
+                statement("a", "src/a/A2.scala", 2, true),
+                statement("b", "src/b/B.scala", 3, false),
+                statement("c", "src/c/C.scala", 4, false));
+        BitSet invoked = new BitSet();
+        invoked.set(0);
+        invoked.set(1);
+        invoked.set(4);
+
+        SCoverageRollup rollup = SCoverageRollup.of(CollectionConverters.asScala(statements), invoked);
+
+        SCoverageRollup.Metrics total = rollup.total();
+        assertEquals(5, total.getStatementCount());
+        assertEquals(3, total.getInvokedStatementCount());
+        assertEquals(2, total.getBranchCount());
+        assertEquals(1, total.getInvokedBranchCount());
+        assertEquals(60.0, total.statementCoveragePercent(), 0.0001);
+        assertEquals(50.0, total.branchCoveragePercent(), 0.0001);
+
+        List<SCoverageRollup.Metrics> packages = new ArrayList<>(rollup.packages());
+        assertEquals(3, packages.size());
+        assertEquals("a", packages.get(0).getName());
+        assertEquals(3, packages.get(0).getStatementCount());
+        // no branches and no invoked statements
+        assertEquals("b", packages.get(1).getName());
+        assertEquals(0.0, packages.get(1).branchCoveragePercent(), 0.0001);
+        // no branches, but invoked statements
+        assertEquals("c", packages.get(2).getName());
+        assertEquals(100.0, packages.get(2).branchCoveragePercent(), 0.0001);
+
+        List<SCoverageRollup.Metrics> files = new ArrayList<>(rollup.files());
+        assertEquals(4, files.size());
+        assertEquals("A.scala", files.get(0).getName());
+        assertEquals(100.0, files.get(0).statementCoveragePercent(), 0.0001);
+        assertEquals("A2.scala", files.get(1).getName());
+        assertEquals(0.0, files.get(1).statementCoveragePercent(), 0.0001);
+    }
+
+    @Test
+    public void testRollupOfMeasuredStatements() {
+        List<Statement> statements = Arrays.asList(
+                statement("a", "src/a/A.scala", 0, true),
+                statement("a", "src/a/A.scala", 1, true),
+                statement("b", "src/b/B.scala", 2, false));
+        statements.get(0).invoked("");
+        statements.get(2).invoked("test");
+        BitSet invoked = new BitSet();
+        invoked.set(0);
+        invoked.set(2);
+
+        SCoverageRollup measured = SCoverageRollup.of(CollectionConverters.asScala(statements));
+        SCoverageRollup expected = SCoverageRollup.of(CollectionConverters.asScala(statements), invoked);
+
+        assertEquals(expected.total().getInvokedStatementCount(), measured.total().getInvokedStatementCount());
+        assertEquals(expected.total().getInvokedBranchCount(), measured.total().getInvokedBranchCount());
+        assertEquals(2, measured.packages().size());
+        assertEquals(50.0, measured.packages().iterator().next().branchCoveragePercent(), 0.0001);
+    }
+
+    @Test
+    public void testEmpty() {
+        SCoverageRollup rollup = SCoverageRollup.of(CollectionConverters.asScala(new ArrayList<Statement>()), new BitSet());
+        assertEquals(100.0, rollup.total().statementCoveragePercent(), 0.0001);
+        assertEquals(100.0, rollup.total().branchCoveragePercent(), 0.0001);
+        assertTrue(rollup.packages().isEmpty());
+    }
+
+    private static Statement statement(String packageName, String source, int id, boolean branch) {
+        Location location = new Location(packageName, "Cls", packageName + ".Cls", null, "method", source);
+        return new Statement(location, id, 0, 1, 1, "desc", "symbol", "tree", branch, 0, false,
+                new HashSet<String>());
+    }
+
+}
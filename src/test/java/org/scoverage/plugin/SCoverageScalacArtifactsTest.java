@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SCoverageScalacArtifactsTest {
+
+    @Test
+    public void testResolvedOnceInOneBatch() throws Exception {
+        List<List<String>> batches = new ArrayList<List<String>>();
+        RepositorySystem repositorySystem = (RepositorySystem) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[] { RepositorySystem.class }, (proxy, method, args) -> {
+                assertEquals("resolveArtifacts", method.getName());
+                List<String> batch = new ArrayList<String>();
+                List<ArtifactResult> results = new ArrayList<ArtifactResult>();
+                for (Object request : (Iterable<?>) args[1]) {
+                    ArtifactRequest artifactRequest = (ArtifactRequest) request;
+                    batch.add(artifactRequest.getArtifact().getArtifactId());
+                    ArtifactResult result = new ArtifactResult(artifactRequest);
+                    result.setArtifact(artifactRequest.getArtifact().setFile(
+                        new File("/repo/" + artifactRequest.getArtifact().getArtifactId() + ".jar")));
+                    results.add(result);
+                }
+                batches.add(batch);
+                return results;
+            });
+        RepositorySystemSession session = new DefaultRepositorySystemSession();
+
+        SCoverageScalacArtifacts scala2 = SCoverageScalacArtifacts.resolve(
+            repositorySystem, session, Collections.emptyList(), new ScalaVersion("2.13.16"), "2.5.2");
+        assertSame(scala2, SCoverageScalacArtifacts.resolve(
+            repositorySystem, session, Collections.emptyList(), new ScalaVersion("2.13.16"), "2.5.2"));
+        assertEquals(1, batches.size());
+        assertEquals(4, batches.get(0).size());
+        assertEquals(3, scala2.getPluginArtifacts().size());
+        assertEquals("scalac-scoverage-runtime_2.13", scala2.getRuntimeArtifact().getArtifactId());
+        String separator = File.pathSeparator;
+        assertEquals(new File("/repo/scalac-scoverage-plugin_2.13.16.jar").getAbsolutePath() + separator
+                         + new File("/repo/scalac-scoverage-domain_2.13.jar").getAbsolutePath() + separator
+                         + new File("/repo/scalac-scoverage-serializer_2.13.jar").getAbsolutePath(),
+                     scala2.getPluginClasspath());
+
+        SCoverageScalacArtifacts scala3 = SCoverageScalacArtifacts.resolve(
+            repositorySystem, session, Collections.emptyList(), new ScalaVersion("3.3.4"), "2.5.2");
+        assertEquals(2, batches.size());
+        assertEquals(2, scala3.getPluginArtifacts().size());
+        assertNull(scala3.getRuntimeArtifact());
+    }
+}
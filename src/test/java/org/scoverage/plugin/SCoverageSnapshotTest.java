@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import scala.collection.mutable.HashSet;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+
+import static org.junit.Assert.*;
+
+public class SCoverageSnapshotTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testRoundTripKeepsTests() throws IOException {
+        File dataDir = temp.newFolder();
+        write(dataDir, "scoverage.coverage", "# instrumentation");
+        write(dataDir, "scoverage.measurements.1", "1", "1 test.A", "2 test.B");
+        write(dataDir, "scoverage.measurements.2", "1 test.B", "2 test.B");
+
+        String fingerprint = SCoverageSnapshot.fingerprint(dataDir, "UTF-8");
+        assertNull(SCoverageSnapshot.read(dataDir, fingerprint));
+        SCoverageInvocations loaded = SCoverageMeasurements.load(dataDir, "UTF-8");
+        SCoverageSnapshot.write(loaded, dataDir, fingerprint);
+        SCoverageInvocations snapshot = SCoverageSnapshot.read(dataDir, fingerprint);
+        assertNotNull(snapshot);
+
+        Coverage cold = coverage();
+        loaded.applyTo(cold);
+        Coverage warm = coverage();
+        snapshot.applyTo(warm);
+        for (int id = 1; id <= 2; id++) {
+            assertEquals(statement(cold, id).count(), statement(warm, id).count());
+            assertEquals(statement(cold, id).tests(), statement(warm, id).tests());
+        }
+        assertEquals(3, statement(warm, 1).count());
+        assertTrue(statement(warm, 1).tests().contains("test.A"));
+        assertTrue(statement(warm, 1).tests().contains("test.B"));
+        assertEquals(1, statement(warm, 2).tests().size());
+
+        // snapshot is not used after measurements change
+        write(dataDir, "scoverage.measurements.3", "2 test.C");
+        assertNull(SCoverageSnapshot.read(dataDir, SCoverageSnapshot.fingerprint(dataDir, "UTF-8")));
+    }
+
+    private static Coverage coverage() {
+        Location location = new Location("a", "A", "a.A", null, "run", "/src/a/A.scala");
+        Coverage coverage = new Coverage();
+        for (int id = 1; id <= 2; id++) {
+            coverage.add(new Statement(location, id, 0, 1, id, "desc", null, "Apply", false, 0, false,
+                    new HashSet<String>()));
+        }
+        return coverage;
+    }
+
+    private static Statement statement(Coverage coverage, int id) {
+        return coverage.statements().find(s -> s.id() == id).get();
+    }
+
+    private static void write(File dir, String name, String... lines) throws IOException {
+        Files.write(new File(dir, name).toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+}
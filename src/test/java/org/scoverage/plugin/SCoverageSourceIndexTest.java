@@ -0,0 +1,80 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import scala.collection.mutable.HashSet;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+
+import static org.junit.Assert.*;
+
+public class SCoverageSourceIndexTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testBuild() throws IOException {
+        File rootA = temp.newFolder("a");
+        File nestedRoot = temp.newFolder("a", "sub");
+        File rootB = temp.newFolder("b");
+        File emptyRoot = temp.newFolder("empty");
+        File missingRoot = new File(temp.getRoot(), "missing");
+
+        String x1 = new File(rootA, "x/X.scala").getCanonicalPath();
+        String x2 = new File(rootB, "x/X.scala").getCanonicalPath();
+        String y = new File(nestedRoot, "Y.scala").getCanonicalPath();
+        String z = new File(temp.getRoot(), "other/Z.scala").getCanonicalPath();
+        Coverage coverage = new Coverage();
+        coverage.add(statement(x1, 1));
+        coverage.add(statement(x1, 2));
+        coverage.add(statement(x2, 3));
+        coverage.add(statement(y, 4));
+        coverage.add(statement(z, 5));
+
+        SCoverageSourceIndex index = SCoverageSourceIndex.build(
+                Arrays.asList(missingRoot, emptyRoot, rootA, nestedRoot, rootB, rootB), coverage);
+
+        assertEquals(Arrays.asList(rootA, rootB), index.usedSourceRoots());
+        assertEquals("x/X.scala", index.relativePath(x1));
+        assertEquals("x/X.scala", index.relativePath(x2));
+        // first root in source roots order wins
+        assertEquals("sub/Y.scala", index.relativePath(y));
+        assertNull(index.relativePath(z));
+        assertEquals(Collections.singletonList(z), index.unresolvedSources());
+        assertEquals(Collections.singleton("x/X.scala"), index.ambiguousPaths().keySet());
+        assertEquals(2, index.ambiguousPaths().get("x/X.scala").size());
+    }
+
+    private static Statement statement(String source, int id) {
+        Location location = new Location("p", "Cls", "p.Cls", null, "method", source);
+        return new Statement(location, id, 0, 1, 1, "desc", "symbol", "tree", false, 0, false, new HashSet<String>());
+    }
+
+}
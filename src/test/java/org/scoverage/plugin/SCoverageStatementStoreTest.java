@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import scala.collection.mutable.HashSet;
+import scala.jdk.javaapi.CollectionConverters;
+
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+
+import static org.junit.Assert.*;
+
+public class SCoverageStatementStoreTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testModulesStoredInColumns() throws IOException {
+        try (SCoverageStatementStore store = new SCoverageStatementStore(Long.MAX_VALUE, null)) {
+            assertEquals(0, store.addModule(module("a", 3)));
+            assertEquals(4, store.addModule(module("b", 2)));
+            assertFalse(store.isSpilled());
+
+            assertEquals(7, store.size());
+            assertEquals(5, store.statementCount());
+            assertEquals(2, store.ignoredStatementCount());
+            assertEquals(2, store.invokedStatementCount());
+            assertEquals(4, store.branchCount());
+            assertEquals(2, store.invokedBranchesCount());
+            // equal locations are stored once
+            assertEquals(2, store.locations().size());
+
+            List<Statement> statements = new ArrayList<>(CollectionConverters.asJavaCollection(store.statements()));
+            statements.sort(Comparator.comparingInt(Statement::id));
+            assertEquals(5, statements.size());
+            assertEquals(5, statements.get(4).id());
+            assertEquals("b", statements.get(4).location().packageName());
+            assertEquals("desc1", statements.get(4).desc());
+            assertTrue(statements.get(4).isInvoked());
+            assertSame(statements.get(3).location(), statements.get(4).location());
+
+            SCoverageRollup rollup = SCoverageRollup.of(store);
+            assertEquals(2, rollup.total().getInvokedStatementCount());
+            assertEquals(2, rollup.packages().size());
+            BitSet invokedIds = new BitSet();
+            invokedIds.set(5);
+            assertEquals(1, SCoverageRollup.of(store, invokedIds).total().getInvokedStatementCount());
+        }
+    }
+
+    @Test
+    public void testTestNamesStoredInDictionary() throws IOException {
+        Coverage module = module("a", 2);
+        Statement statement = module.statements().find(s -> s.id() == 1).get();
+        statement.invoked("test.A");
+        statement.invoked("test.B");
+        try (SCoverageStatementStore store = new SCoverageStatementStore(Long.MAX_VALUE, null)) {
+            store.addModule(module);
+            Statement stored = store.statements().find(s -> s.id() == 1).get();
+            assertEquals(3, stored.count());
+            assertEquals(new java.util.HashSet<>(java.util.Arrays.asList("test.A", "test.B")),
+                         new java.util.HashSet<>(CollectionConverters.asJava(stored.tests())));
+            assertTrue(store.statements().find(s -> s.id() == 0).get().tests().isEmpty());
+        }
+    }
+
+    @Test
+    public void testSpillToMemoryMappedFile() throws IOException {
+        try (SCoverageStatementStore store = new SCoverageStatementStore(SCoverageStatementStore.CHUNK_ROWS, temp.getRoot())) {
+            int n = SCoverageStatementStore.CHUNK_ROWS + 10;
+            store.addModule(module("a", n));
+            assertTrue(store.isSpilled());
+            assertEquals(1, temp.getRoot().list().length);
+
+            int row = SCoverageStatementStore.CHUNK_ROWS + 5;
+            int id = store.id(row);
+            assertEquals(id, store.line(row));
+            assertEquals(id % 2, store.count(row));
+            assertEquals("desc" + id, store.statement(row).desc());
+        }
+        assertEquals(0, temp.getRoot().list().length);
+    }
+
+    /**
+     * Module with statements of ids 0 to {@code n - 1}, every odd statement invoked, first two are branches,
+     * and one ignored statement.
+     */
+    private static Coverage module(String pkg, int n) {
+        Location location = new Location(pkg, "A", pkg + ".A", null, "run", "/src/" + pkg + "/A.scala");
+        Coverage coverage = new Coverage();
+        for (int i = 0; i < n; i++) {
+            coverage.add(new Statement(location, i, 0, 1, i, "desc" + i, "symbol", "Apply", i < 2, i % 2, false,
+                    new HashSet<String>()));
+        }
+        coverage.addIgnoredStatement(new Statement(location, n, 0, 1, n, "ignored", null, "Ident", false, 0, true,
+                new HashSet<String>()));
+        return coverage;
+    }
+
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import scala.Option;
+import scala.collection.immutable.Seq;
+import scala.collection.mutable.HashSet;
+import scala.jdk.javaapi.CollectionConverters;
+
+import scoverage.domain.ClassType$;
+import scoverage.domain.Coverage;
+import scoverage.domain.Location;
+import scoverage.domain.Statement;
+import scoverage.reporter.CoberturaXmlWriter;
+import scoverage.reporter.ScoverageXmlWriter;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class SCoverageStreamingXmlWriterTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testCoberturaXml() throws Exception {
+        File outputDir = temp.newFolder();
+        new SCoverageCoberturaXmlWriter(index(), outputDir, "UTF-8").write(coverage());
+
+        String text = new String(Files.readAllBytes(new File(outputDir, "cobertura.xml").toPath()), StandardCharsets.UTF_8);
+        assertTrue(text.startsWith("<?xml version=\"1.0\"?>\n<!DOCTYPE coverage SYSTEM"));
+
+        Element root = parse(new File(outputDir, "cobertura.xml")).getDocumentElement();
+        assertEquals("coverage", root.getTagName());
+        assertEquals("0.50", root.getAttribute("line-rate"));
+        assertEquals("4", root.getAttribute("lines-valid"));
+        assertEquals("2", root.getAttribute("lines-covered"));
+        assertEquals("1", root.getAttribute("branches-valid"));
+        assertEquals("1", root.getAttribute("branches-covered"));
+        assertEquals("1.00", root.getAttribute("branch-rate"));
+        assertEquals(2, root.getElementsByTagName("source").getLength());
+
+        NodeList packages = root.getElementsByTagName("package");
+        assertEquals(2, packages.getLength());
+        Element a = (Element) packages.item(0);
+        assertEquals("a", a.getAttribute("name"));
+        assertEquals("0.67", a.getAttribute("line-rate"));
+
+        Element cls = (Element) a.getElementsByTagName("class").item(0);
+        assertEquals("a.A", cls.getAttribute("name"));
+        assertEquals("a" + File.separator + "A.scala", cls.getAttribute("filename"));
+        assertEquals(2, cls.getElementsByTagName("method").getLength());
+        // method lines and class lines
+        assertEquals(6, cls.getElementsByTagName("line").getLength());
+    }
+
+    @Test
+    public void testScoverageXml() throws Exception {
+        File outputDir = temp.newFolder();
+        new SCoverageXmlWriter(index(), outputDir, "UTF-8").write(coverage());
+
+        Element root = parse(new File(outputDir, "scoverage.xml")).getDocumentElement();
+        assertEquals("scoverage", root.getTagName());
+        assertEquals("4", root.getAttribute("statement-count"));
+        assertEquals("2", root.getAttribute("statements-invoked"));
+        assertEquals("50.00", root.getAttribute("statement-rate"));
+        assertEquals("100.00", root.getAttribute("branch-rate"));
+
+        NodeList classes = root.getElementsByTagName("class");
+        assertEquals(2, classes.getLength());
+        Element method = (Element) ((Element) classes.item(0)).getElementsByTagName("method").item(0);
+        assertEquals("run", method.getAttribute("name"));
+        assertEquals("2", method.getAttribute("statement-count"));
+
+        Element statement = (Element) method.getElementsByTagName("statement").item(0);
+        assertEquals("a", statement.getAttribute("package"));
+        assertEquals("A", statement.getAttribute("class"));
+        assertEquals("Class", statement.getAttribute("class-type"));
+        assertEquals("a.A", statement.getAttribute("full-class-name"));
+        assertEquals("1", statement.getAttribute("line"));
+        assertEquals("true", statement.getAttribute("branch"));
+        assertEquals("1", statement.getAttribute("invocation-count"));
+        assertEquals("false", statement.getAttribute("ignored"));
+    }
+
+    @Test
+    public void testScoverageXmlStatementAttributes() throws Exception {
+        File outputDir = temp.newFolder();
+        new SCoverageXmlWriter(index(), outputDir, "UTF-8").write(coverage());
+
+        List<String> attributes = new ArrayList<String>();
+        try (InputStream in = Files.newInputStream(new File(outputDir, "scoverage.xml").toPath())) {
+            XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+            while (attributes.isEmpty() && reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "statement".equals(reader.getLocalName())) {
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        attributes.add(reader.getAttributeLocalName(i) + "=" + reader.getAttributeValue(i));
+                    }
+                }
+            }
+            reader.close();
+        }
+        String source = new File(sourceRoot(), "a/A.scala").getCanonicalPath();
+        assertEquals(Arrays.asList("package=a", "class=A", "class-type=Class", "full-class-name=a.A",
+                                   "source=" + source, "method=run", "start=0", "end=1", "line=1",
+                                   "symbol=symbol", "tree=tree", "branch=true", "invocation-count=1",
+                                   "ignored=false"),
+                     attributes);
+    }
+
+    @Test
+    public void testCoberturaXmlListsAllSourceRoots() throws Exception {
+        File otherSourceRoot = temp.newFolder();
+        SCoverageSourceIndex index = SCoverageSourceIndex.build(Arrays.asList(sourceRoot(), otherSourceRoot), coverage());
+        assertEquals(1, index.usedSourceRoots().size());
+
+        File outputDir = temp.newFolder();
+        new SCoverageCoberturaXmlWriter(index, outputDir, "UTF-8").write(coverage());
+
+        NodeList sources = parse(new File(outputDir, "cobertura.xml")).getDocumentElement().getElementsByTagName("source");
+        assertEquals(3, sources.getLength());
+        assertEquals(otherSourceRoot.getCanonicalPath().replace(File.separator, "/"), sources.item(2).getTextContent());
+    }
+
+    @Test
+    public void testStatementStoreWritesSameXml() throws Exception {
+        File outputDir = temp.newFolder();
+        File storeOutputDir = temp.newFolder();
+        new SCoverageXmlWriter(index(), outputDir, "UTF-8").write(coverage());
+        try (SCoverageStatementStore store = new SCoverageStatementStore(0, temp.getRoot())) {
+            store.addModule(coverage());
+            assertTrue(store.isSpilled());
+            new SCoverageXmlWriter(index(), storeOutputDir, "UTF-8").write(store);
+        }
+
+        assertEquals(withoutTimestamp(new File(outputDir, "scoverage.xml")),
+                     withoutTimestamp(new File(storeOutputDir, "scoverage.xml")));
+    }
+
+    @Test
+    public void testScoverageXmlMatchesGoldenFile() throws Exception {
+        File otherSourceRoot = temp.newFolder();
+        File outputDir = temp.newFolder();
+        new SCoverageXmlWriter(index(otherSourceRoot), outputDir, "UTF-8").write(coverage());
+
+        assertEquals(golden("scoverage-golden.xml", otherSourceRoot),
+                     canonical(Files.newInputStream(new File(outputDir, "scoverage.xml").toPath())));
+    }
+
+    @Test
+    public void testCoberturaXmlMatchesGoldenFile() throws Exception {
+        File otherSourceRoot = temp.newFolder();
+        File outputDir = temp.newFolder();
+        new SCoverageCoberturaXmlWriter(index(otherSourceRoot), outputDir, "UTF-8").write(coverage());
+
+        assertEquals(golden("cobertura-golden.xml", otherSourceRoot),
+                     canonical(Files.newInputStream(new File(outputDir, "cobertura.xml").toPath())));
+    }
+
+    @Test
+    public void testScoverageXmlMatchesUpstreamWriter() throws Exception {
+        File otherSourceRoot = temp.newFolder();
+        File outputDir = temp.newFolder();
+        File upstreamOutputDir = temp.newFolder();
+        new SCoverageXmlWriter(index(otherSourceRoot), outputDir, "UTF-8").write(coverage());
+        new ScoverageXmlWriter(sourceRoots(otherSourceRoot), upstreamOutputDir, false, Option.apply("UTF-8"))
+                .write(coverage());
+
+        assertSameXml(new File(upstreamOutputDir, "scoverage.xml"), new File(outputDir, "scoverage.xml"));
+    }
+
+    @Test
+    public void testCoberturaXmlMatchesUpstreamWriter() throws Exception {
+        File otherSourceRoot = temp.newFolder();
+        File outputDir = temp.newFolder();
+        File upstreamOutputDir = temp.newFolder();
+        new SCoverageCoberturaXmlWriter(index(otherSourceRoot), outputDir, "UTF-8").write(coverage());
+        new CoberturaXmlWriter(sourceRoots(otherSourceRoot), upstreamOutputDir, Option.apply("UTF-8"))
+                .write(coverage());
+
+        assertSameXml(new File(upstreamOutputDir, "cobertura.xml"), new File(outputDir, "cobertura.xml"));
+    }
+
+    private static void assertSameXml(File expected, File actual) throws Exception {
+        // upstream writers may be unavailable on the test classpath, golden files cover this case
+        assumeTrue(expected.isFile());
+        assertEquals(canonical(Files.newInputStream(expected.toPath())),
+                     canonical(Files.newInputStream(actual.toPath())));
+    }
+
+    /**
+     * Golden files contain upstream writer output for {@link #coverage()}, with source root paths
+     * and timestamp replaced by placeholders.
+     */
+    private List<String> golden(String name, File otherSourceRoot) throws Exception {
+        String text;
+        try (InputStream in = getClass().getResourceAsStream(name)) {
+            assertNotNull(name, in);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                bytes.write(buffer, 0, n);
+            }
+            text = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+        text = text.replace("${sourceRoot}", sourceRoot().getCanonicalPath().replace(File.separatorChar, '/'))
+                   .replace("${otherSourceRoot}", otherSourceRoot.getCanonicalPath().replace(File.separatorChar, '/'));
+        return canonical(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Elements with attributes in document order and non-blank text, one per line, so that
+     * formatting differences (indentation, empty element syntax) do not matter.
+     */
+    private static List<String> canonical(InputStream in) throws Exception {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        List<String> lines = new ArrayList<String>();
+        try (InputStream input = in) {
+            XMLStreamReader reader = factory.createXMLStreamReader(input);
+            int depth = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    StringBuilder line = new StringBuilder();
+                    for (int i = 0; i < depth; i++) {
+                        line.append("  ");
+                    }
+                    line.append('<').append(reader.getLocalName());
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        String name = reader.getAttributeLocalName(i);
+                        String value = "timestamp".equals(name) ? "*" : reader.getAttributeValue(i).replace(File.separatorChar, '/');
+                        line.append(' ').append(name).append("=\"").append(value).append('"');
+                    }
+                    lines.add(line.append('>').toString());
+                    depth++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                } else if (event == XMLStreamConstants.CHARACTERS && !reader.isWhiteSpace()
+                        && !reader.getText().trim().isEmpty()) {
+                    lines.add(reader.getText().trim().replace(File.separatorChar, '/'));
+                }
+            }
+            reader.close();
+        }
+        return lines;
+    }
+
+    private static String withoutTimestamp(File file) throws Exception {
+        String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        return text.replaceAll("timestamp=\"[0-9]*\"", "");
+    }
+
+    private File sourceRoot;
+
+    private SCoverageSourceIndex index() throws Exception {
+        return SCoverageSourceIndex.build(Collections.singletonList(sourceRoot()), coverage());
+    }
+
+    private SCoverageSourceIndex index(File otherSourceRoot) throws Exception {
+        return SCoverageSourceIndex.build(Arrays.asList(sourceRoot(), otherSourceRoot), coverage());
+    }
+
+    private Seq<File> sourceRoots(File otherSourceRoot) throws Exception {
+        return CollectionConverters.asScala(Arrays.asList(sourceRoot(), otherSourceRoot)).toSeq();
+    }
+
+    private File sourceRoot() throws Exception {
+        if (sourceRoot == null) {
+            sourceRoot = temp.newFolder();
+        }
+        return sourceRoot;
+    }
+
+    private Coverage coverage() throws Exception {
+        String a = new File(sourceRoot(), "a/A.scala").getCanonicalPath();
+        String b = new File(sourceRoot(), "b/B.scala").getCanonicalPath();
+        Coverage coverage = new Coverage();
+        coverage.add(statement("a", "A", "run", a, 1, 1, true, 1));
+        coverage.add(statement("a", "A", "run", a, 2, 2, false, 0));
+        coverage.add(statement("a", "A", "stop", a, 3, 3, false, 2));
+        coverage.add(statement("b", "B", "run", b, 4, 1, false, 0));
+        return coverage;
+    }
+
+    private static Statement statement(String pkg, String cls, String method, String source, int id, int line,
+                                       boolean branch, int count) {
+        Location location = new Location(pkg, cls, pkg + "." + cls, ClassType$.MODULE$.fromString("Class"), method, source);
+        return new Statement(location, id, 0, 1, line, "desc", "symbol", "tree", branch, count, false,
+                new HashSet<String>());
+    }
+
+    private static Document parse(File file) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        return builder.parse(file);
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014-2026 Grzegorz Slowikowski (gslowikowski at gmail dot com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.scoverage.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SCoverageTestBitmapTest {
+
+    @Test
+    public void testSparseAndDense() {
+        SCoverageTestBitmap bitmap = new SCoverageTestBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        // sparse ids first, then dense ids converting array to bitmap words
+        for (int id : new int[] {1000, 3, 500, 3}) {
+            assertEquals(expected.add(id), bitmap.add(id));
+        }
+        for (int id = 0; id < 300; id += 2) {
+            assertEquals(expected.add(id), bitmap.add(id));
+        }
+        assertTrue(bitmap.add(1200));
+        expected.add(1200);
+
+        assertEquals(expected.size(), bitmap.cardinality());
+        assertTrue(bitmap.contains(1000));
+        assertFalse(bitmap.contains(1001));
+        assertFalse(bitmap.contains(100000));
+
+        List<Integer> ids = new ArrayList<>();
+        bitmap.forEach(ids::add);
+        assertEquals(new ArrayList<>(expected), ids);
+    }
+
+}